@@ -1,10 +1,35 @@
 package com.fablauncher;
 
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+
 import com.badlogic.gdx.backends.lwjgl.LwjglApplication;
 import com.fab.*;
 
+/** Usage: LauncherDesktop [scene]
+ *         LauncherDesktop -list
+ *         LauncherDesktop -bench [steps] [output.csv]
+ *
+ * Shows the scene of the given name, the Game by default. -list prints the names of all scenes, -bench steps every scene
+ * headless with fixed solver iterations and writes the timings of all of them as one CSV. */
 public class LauncherDesktop {
-  public static void main (String[] args) {
-    new LwjglApplication(new Game(), "Game", 1024, 768, false);
+  public static void main (String[] args) throws IOException {
+    if (args.length > 0 && args[0].equals("-list")) {
+      for (String name : SceneRegistry.getNames())
+        System.out.println(name);
+      return;
+    }
+    if (args.length > 0 && args[0].equals("-bench")) {
+      int steps = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+      Writer out = args.length > 2 ? new FileWriter(args[2]) : new PrintWriter(System.out);
+      HeadlessRunner.runAll(out, steps, 1 / 60f);
+      if (args.length > 2) out.close();
+      return;
+    }
+
+    String name = args.length > 0 ? args[0] : "Game";
+    new LwjglApplication(SceneRegistry.createApplication(name), name, 1024, 768, false);
   }
 }
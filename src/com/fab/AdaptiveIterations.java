@@ -0,0 +1,180 @@
+package com.fab;
+
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.BodyDef.BodyType;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.TimeUtils;
+
+/** Chooses the velocity and position iterations of every world step instead of a fixed (3, 3).
+ *
+ * The demand comes from the constraints per awake body: a settled stack has two or more contacts per body and a weld chain
+ * one joint per body, both need more iterations to stay stable, while loose spheres or an idle field need few. A world
+ * without awake bodies gets the minimum. The awake bodies are counted every {@link #sampleInterval} steps, whenever bodies or
+ * joints are added or removed and when a sleeping world gets contacts, counting asks every body of the world.
+ *
+ * The demand is then capped by the solver time {@link #budget} of a frame, shared by the steps of the frame. Only the solver
+ * share of a step grows with the iterations, the broadphase, the contact updates and the integration don't. The cost of one
+ * iteration per constraint is therefore learned as the slope of the step time over the iteration work of the previous steps,
+ * a regression with decaying weights, and the iterations are reduced until the estimated solver time fits. The sample steps run
+ * {@link #PROBE} velocity iterations more or less than chosen, so the work varies even while the chosen counts don't. */
+public class AdaptiveIterations {
+	/** when false every step uses {@link #fixedVelocityIterations} and {@link #fixedPositionIterations} **/
+	public boolean adaptive = true;
+	public int fixedVelocityIterations = 3;
+	public int fixedPositionIterations = 3;
+
+	public int minVelocityIterations = 2;
+	public int maxVelocityIterations = 10;
+	public int minPositionIterations = 1;
+	public int maxPositionIterations = 8;
+
+	/** the solver time a frame may take in seconds, the steps of a frame share it **/
+	public float budget = 0.004f;
+
+	/** the velocity iterations added to or taken from a sample step **/
+	static final int PROBE = 2;
+
+	/** the steps between two counts of the awake bodies, the iterations of those steps vary by {@link #PROBE} **/
+	public int sampleInterval = 30;
+
+	private final Array<Body> bodies = new Array<Body>();
+	private int awakeCount;
+	private int contactCount;
+	private int jointCount;
+	private int bodyCount = -1;
+	private int sampledJointCount = -1, sampledContactCount = -1;
+	private int stepsSinceSample;
+	private int velocityIterations = 3;
+	private int positionIterations = 3;
+	private float stepTime;
+
+	/** seconds per iteration and constraint, 0 until the first step was measured **/
+	private float iterationCost;
+	/** the decaying sums of the regression of the step time over the iteration work **/
+	private double weights, work, time, workSquared, workTime;
+
+	/** Chooses the iterations for the current state of the world and steps it, as the only step of its frame. */
+	public void step (World world, float timeStep) {
+		step(world, timeStep, 1);
+	}
+
+	/** Chooses the iterations for the current state of the world and steps it.
+	 * @param frameSteps the steps of the current frame that share the {@link #budget}, see {@link FixedTimestep#getFrameSteps()} */
+	public void step (World world, float timeStep, int frameSteps) {
+		if (adaptive)
+			choose(world, Math.max(1, frameSteps));
+		else {
+			velocityIterations = fixedVelocityIterations;
+			positionIterations = fixedPositionIterations;
+		}
+
+		long startTime = TimeUtils.nanoTime();
+		world.step(timeStep, velocityIterations, positionIterations);
+		stepTime = (TimeUtils.nanoTime() - startTime) / 1000000000.0f;
+
+		// without constraints the solver has nothing to do, the step time is all overhead
+		int constraints = contactCount + jointCount;
+		if (adaptive && constraints > 0) learn((velocityIterations + positionIterations) * constraints, stepTime);
+	}
+
+	/** fits step time = overhead + cost * work, the slope is the cost of the solver alone **/
+	private void learn (double work, double time) {
+		double keep = 0.98;
+		weights = weights * keep + 1;
+		this.work = this.work * keep + work;
+		this.time = this.time * keep + time;
+		workSquared = workSquared * keep + work * work;
+		workTime = workTime * keep + work * time;
+
+		// the whole step time is the upper bound, used until the work varied enough to tell the solver from the rest
+		double meanWork = this.work / weights, meanTime = this.time / weights;
+		double upper = meanTime / meanWork;
+		double variance = workSquared / weights - meanWork * meanWork;
+		double cost = upper;
+		if (variance > meanWork * meanWork * 0.0025) {
+			double slope = (workTime / weights - meanWork * meanTime) / variance;
+			// timing noise can tilt the slope below 0, keep the last estimate then
+			if (slope <= 0) return;
+			cost = Math.min(upper, slope);
+		}
+		iterationCost = iterationCost == 0 ? (float)cost : iterationCost + ((float)cost - iterationCost) * 0.1f;
+	}
+
+	private void choose (World world, int frameSteps) {
+		contactCount = world.getContactCount();
+		jointCount = world.getJointCount();
+		int bodyCount = world.getBodyCount();
+		boolean probe = ++stepsSinceSample >= sampleInterval;
+		// a sleeping world that gets new contacts has woken up
+		if (probe || bodyCount != this.bodyCount || jointCount != sampledJointCount
+			|| (awakeCount == 0 && contactCount != sampledContactCount)) {
+			awakeCount = countAwake(world);
+			this.bodyCount = bodyCount;
+			sampledJointCount = jointCount;
+			sampledContactCount = contactCount;
+			stepsSinceSample = 0;
+		}
+
+		if (awakeCount == 0) {
+			velocityIterations = minVelocityIterations;
+			positionIterations = minPositionIterations;
+			return;
+		}
+
+		// contacts per body decide about the velocity iterations, joints about the position ones
+		float contactDensity = contactCount / (float)awakeCount;
+		float jointDensity = jointCount / (float)awakeCount;
+		int velocity = minVelocityIterations + Math.round(3 * (contactDensity + jointDensity));
+		int position = minPositionIterations + Math.round(2 * contactDensity + 4 * jointDensity);
+		velocity = Math.min(velocity, maxVelocityIterations);
+		position = Math.min(position, maxPositionIterations);
+
+		if (iterationCost > 0) {
+			int constraints = Math.max(1, contactCount + jointCount);
+			int affordable = (int)(budget / frameSteps / (iterationCost * constraints));
+			while (velocity + position > affordable
+				&& (velocity > minVelocityIterations || position > minPositionIterations)) {
+				if (velocity > minVelocityIterations && (velocity >= position || position == minPositionIterations))
+					velocity--;
+				else
+					position--;
+			}
+		}
+
+		// a chosen count that never changes leaves the solver cost unknown, every sample step varies the work a little
+		if (probe) velocity += velocity + PROBE <= maxVelocityIterations ? PROBE : -Math.min(PROBE, velocity - 1);
+
+		velocityIterations = velocity;
+		positionIterations = position;
+	}
+
+	private int countAwake (World world) {
+		world.getBodies(bodies);
+		int count = 0;
+		for (int i = 0; i < bodies.size; i++) {
+			// only the awake bodies are asked for their type, static ones sleep with the islands they touch or stay awake
+			Body body = bodies.get(i);
+			if (body.isAwake() && body.getType() != BodyType.StaticBody) count++;
+		}
+		return count;
+	}
+
+	public int getVelocityIterations () {
+		return velocityIterations;
+	}
+
+	public int getPositionIterations () {
+		return positionIterations;
+	}
+
+	/** @return the time the last step took in seconds */
+	public float getStepTime () {
+		return stepTime;
+	}
+
+	/** @return the awake non static bodies counted last, at most {@link #sampleInterval} steps ago */
+	public int getAwakeCount () {
+		return awakeCount;
+	}
+}
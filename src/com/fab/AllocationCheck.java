@@ -0,0 +1,98 @@
+package com.fab;
+
+import com.badlogic.gdx.utils.GdxNativesLoader;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+/** Checks that the per frame paths which promise not to allocate don't, with the allocation counter of the thread. Every
+ * check runs its path {@link #WARMUP} times, so classes are loaded and the JIT has compiled it, and then counts the bytes of
+ * {@link #FRAMES} more runs. Any byte fails the check with an exception. Needs a VM that counts allocations per thread, reading
+ * the counter allocates itself, that is subtracted.
+ *
+ * <ul>
+ * <li>hud: recording the frame times in {@link FrameMetrics} and formatting the HUD text of a {@link Box2DTest}</li>
+ * <li>step: a step of the {@link Game} with its steering, for {@link #PLAYERS} players, {@link #STEPS} steps each</li>
+ * </ul>
+ *
+ * Usage: AllocationCheck [check|all] */
+public class AllocationCheck {
+	public static final String[] CHECKS = {"hud", "step"};
+
+	static final int WARMUP = 20000;
+	static final int FRAMES = 10000;
+
+	/** the matches of the step check: players, balls and teams **/
+	static final int[][] PLAYERS = { {10, 1, 1}, {1000, 4, 2}, {5000, 16, 4}};
+	/** the steps of large matches take milliseconds, fewer of them do **/
+	static final int STEPS = 300;
+
+	/** the bytes allocated by reading the counter **/
+	static long overhead;
+
+	/** @return the bytes the current thread allocated since the given count */
+	static long allocatedSince (long bytes) {
+		return MicroBenchmark.allocatedBytes() - bytes - overhead;
+	}
+
+	/** @return the bytes allocated by the HUD of a Box2D test over {@link #FRAMES} frames */
+	static long hud () {
+		Pyramid scene = new Pyramid();
+		scene.createPhysics();
+		scene.visibleBodies = 100;
+		try {
+			long bytes = 0;
+			for (int i = 0; i < WARMUP + FRAMES; i++) {
+				if (i == WARMUP) bytes = MicroBenchmark.allocatedBytes();
+				// varying times, so that the sort and the number formatting take different paths
+				float time = (i % 97) / 10000f;
+				scene.formatHud(time, time * 0.5f, 1 / 60f + time, 60 - i % 7);
+			}
+			return allocatedSince(bytes);
+		} finally {
+			scene.disposePhysics();
+		}
+	}
+
+	/** @return the bytes allocated by {@link #STEPS} steps of the match, after as many steps of warmup */
+	static long step (int players, int balls, int teams) {
+		Game game = new Game(players, balls, teams);
+		game.makeDeterministic(1);
+		game.createPhysics();
+		try {
+			long bytes = 0;
+			for (int i = 0; i < 2 * STEPS; i++) {
+				if (i == STEPS) bytes = MicroBenchmark.allocatedBytes();
+				game.step(1 / 60f);
+			}
+			return allocatedSince(bytes);
+		} finally {
+			game.disposePhysics();
+		}
+	}
+
+	static long run (String check) {
+		if (check.equals("hud")) return hud();
+		if (check.equals("step")) {
+			long bytes = 0;
+			for (int[] match : PLAYERS) {
+				long matchBytes = step(match[0], match[1], match[2]);
+				System.out.println("step " + match[0] + " players: " + matchBytes + " bytes");
+				bytes += matchBytes;
+			}
+			return bytes;
+		}
+		throw new GdxRuntimeException("Unknown check " + check);
+	}
+
+	public static void main (String[] args) {
+		GdxNativesLoader.load();
+		if (MicroBenchmark.allocatedBytes() == 0) throw new GdxRuntimeException("The VM doesn't count allocations per thread");
+		overhead = 0;
+		overhead = allocatedSince(MicroBenchmark.allocatedBytes());
+		String[] checks = args.length > 0 && !args[0].equals("all") ? new String[] {args[0]} : CHECKS;
+		for (String check : checks) {
+			long bytes = run(check);
+			System.out.println(check + ": " + bytes + " bytes");
+			if (bytes != 0) throw new GdxRuntimeException(check + " allocated " + bytes + " bytes");
+		}
+	}
+}
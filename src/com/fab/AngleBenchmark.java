@@ -0,0 +1,87 @@
+package com.fab;
+
+import java.io.IOException;
+import java.util.Random;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector2;
+
+/** Compares the angle math of the steering with {@link MicroBenchmark}. One operation runs over {@link #COUNT} precomputed
+ * inputs, so the JIT can't fold the calls and the score is per {@link #COUNT} calls:
+ * <ul>
+ * <li>Math.atan2, MathUtils.atan2, Vector2.angle (converted to rad as Game did) and FastMath.atan2</li>
+ * <li>the wrap of a rotation to [-PI, PI] with the while loops Game used and with FastMath.wrapAngle</li>
+ * </ul>
+ *
+ * Usage: AngleBenchmark [benchmark|all] */
+public class AngleBenchmark extends MicroBenchmark {
+	public static final String[] BENCHMARKS = {"Math.atan2", "MathUtils.atan2", "Vector2.angle", "FastMath.atan2", "wrapLoop",
+		"FastMath.wrapAngle"};
+	static final int COUNT = 1024;
+
+	final float[] x = new float[COUNT];
+	final float[] y = new float[COUNT];
+	final float[] angles = new float[COUNT];
+	final Vector2 vector = new Vector2();
+	String benchmark;
+
+	@Override
+	protected void setUp (String param) {
+		benchmark = param;
+		// a fixed seed, every fork measures the same inputs
+		Random random = new Random(0);
+		for (int i = 0; i < COUNT; i++) {
+			x[i] = random.nextFloat() * 90 - 45;
+			y[i] = random.nextFloat() * 70 - 35;
+			// differences of two angles as the steering produces them, players keep spinning so they grow beyond 2 PI
+			angles[i] = (random.nextFloat() * 2 - 1) * 4 * MathUtils.PI2;
+		}
+	}
+
+	@Override
+	protected long operation () {
+		float[] x = this.x, y = this.y, angles = this.angles;
+		float sum = 0;
+		if (benchmark.equals("Math.atan2")) {
+			for (int i = 0; i < COUNT; i++)
+				sum += (float)Math.atan2(y[i], x[i]);
+		} else if (benchmark.equals("MathUtils.atan2")) {
+			for (int i = 0; i < COUNT; i++)
+				sum += MathUtils.atan2(y[i], x[i]);
+		} else if (benchmark.equals("Vector2.angle")) {
+			for (int i = 0; i < COUNT; i++)
+				sum += vector.set(x[i], y[i]).angle() / 360 * MathUtils.PI2;
+		} else if (benchmark.equals("FastMath.atan2")) {
+			for (int i = 0; i < COUNT; i++)
+				sum += FastMath.atan2(y[i], x[i]);
+		} else if (benchmark.equals("wrapLoop")) {
+			for (int i = 0; i < COUNT; i++) {
+				float rotation = angles[i];
+				while (rotation > MathUtils.PI)
+					rotation -= MathUtils.PI2;
+				while (rotation < -MathUtils.PI)
+					rotation += MathUtils.PI2;
+				sum += rotation;
+			}
+		} else if (benchmark.equals("FastMath.wrapAngle")) {
+			for (int i = 0; i < COUNT; i++)
+				sum += FastMath.wrapAngle(angles[i]);
+		} else {
+			throw new IllegalArgumentException("Unknown benchmark " + benchmark);
+		}
+		return Float.floatToRawIntBits(sum);
+	}
+
+	public static void main (String[] args) throws IOException, InterruptedException {
+		if (args.length == 3 && args[0].equals("-fork")) {
+			forked(new AngleBenchmark(), args[2]);
+			return;
+		}
+
+		String[] benchmarks = args.length > 0 && !args[0].equals("all") ? new String[] {args[0]} : BENCHMARKS;
+
+		System.out.println(Score.HEADER);
+		for (String benchmark : benchmarks)
+			System.out.println(new AngleBenchmark().run(AngleBenchmark.class, "angle", benchmark));
+	}
+}
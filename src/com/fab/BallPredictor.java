@@ -0,0 +1,155 @@
+package com.fab;
+
+/** Predicts the path of a ball in the walled field of {@link Game} for a fixed horizon. The path is computed analytically once
+ * per step by {@link #update(float, float, float, float, float)}: the ball moves in straight lines and is reflected at the four
+ * walls, ignoring collisions with players. Every straight part is stored as a segment with its start time, and queries find
+ * their segment by binary search, so any number of players can ask for the position at any time of the horizon without
+ * repeating the extrapolation.
+ *
+ * A bounce resolves the contact like Box2D does for a solid disk: the normal velocity is reversed and scaled by the
+ * restitution, below Box2D's velocity threshold of 1 m/s the ball doesn't bounce. Friction takes up to friction times the
+ * normal impulse of the tangential speed of the contact point and turns it into spin, so the spin is tracked as well. */
+public class BallPredictor {
+	/** the area the center of the ball can reach, the walls moved inwards by the ball radius **/
+	public final float minX, minY, maxX, maxY;
+	public final float radius;
+	/** the restitution of a wall contact, Box2D uses the larger one of both fixtures **/
+	public final float restitution;
+	/** the friction of a wall contact, Box2D uses the geometric mean of both fixtures **/
+	public final float friction;
+	/** the predicted time in seconds **/
+	public float horizon = 2;
+
+	static final int MAX_SEGMENTS = 64;
+	private final float[] time = new float[MAX_SEGMENTS];
+	private final float[] x = new float[MAX_SEGMENTS];
+	private final float[] y = new float[MAX_SEGMENTS];
+	private final float[] vx = new float[MAX_SEGMENTS];
+	private final float[] vy = new float[MAX_SEGMENTS];
+	private int count;
+
+	static final float VELOCITY_THRESHOLD = 1;
+
+	/** Takes the positions of the walls, the predictor moves them inwards by the radius itself. */
+	public BallPredictor (float minX, float minY, float maxX, float maxY, float radius, float restitution, float friction) {
+		this.minX = minX + radius;
+		this.minY = minY + radius;
+		this.maxX = maxX - radius;
+		this.maxY = maxY - radius;
+		this.radius = radius;
+		this.restitution = restitution;
+		this.friction = friction;
+	}
+
+	/** Computes the path for the current state of the ball. */
+	public void update (float x, float y, float vx, float vy, float angularVelocity) {
+		// a ball pressed into a wall is predicted from the wall
+		x = Math.min(maxX, Math.max(minX, x));
+		y = Math.min(maxY, Math.max(minY, y));
+		float t = 0;
+		count = 0;
+		add(t, x, y, vx, vy);
+		while (count < MAX_SEGMENTS) {
+			float tx = vx > 0 ? (maxX - x) / vx : vx < 0 ? (minX - x) / vx : Float.MAX_VALUE;
+			float ty = vy > 0 ? (maxY - y) / vy : vy < 0 ? (minY - y) / vy : Float.MAX_VALUE;
+			float hit = Math.min(tx, ty);
+			if (t + hit >= horizon) break;
+
+			t += hit;
+			x += vx * hit;
+			y += vy * hit;
+			// both at once in a corner
+			if (tx <= hit) {
+				x = vx > 0 ? maxX : minX;
+				// the tangent of the right wall points up, the one of the left wall down
+				float tangent = vx > 0 ? 1 : -1;
+				float impulse = frictionImpulse(tangent * vy, angularVelocity, Math.abs(vx));
+				vy -= tangent * impulse;
+				angularVelocity -= 2 * impulse / radius;
+				vx = -vx * bounce(vx);
+			}
+			if (ty <= hit) {
+				y = vy > 0 ? maxY : minY;
+				// the tangent of the top wall points left, the one of the bottom wall right
+				float tangent = vy > 0 ? -1 : 1;
+				float impulse = frictionImpulse(tangent * vx, angularVelocity, Math.abs(vy));
+				vx -= tangent * impulse;
+				angularVelocity -= 2 * impulse / radius;
+				vy = -vy * bounce(vy);
+			}
+			add(t, x, y, vx, vy);
+		}
+	}
+
+	private float bounce (float normalVelocity) {
+		return Math.abs(normalVelocity) > VELOCITY_THRESHOLD ? restitution : 0;
+	}
+
+	/** @return the tangential impulse per mass, the contact point stops sliding unless friction limits the impulse */
+	private float frictionImpulse (float tangentVelocity, float angularVelocity, float normalSpeed) {
+		// for a disk with I = m r^2 / 2 an impulse changes the contact point speed three times as much as the center speed
+		float sliding = (tangentVelocity + angularVelocity * radius) / 3;
+		float limit = friction * (1 + bounce(normalSpeed)) * normalSpeed;
+		return Math.max(-limit, Math.min(limit, sliding));
+	}
+
+	private void add (float t, float x, float y, float vx, float vy) {
+		time[count] = t;
+		this.x[count] = x;
+		this.y[count] = y;
+		this.vx[count] = vx;
+		this.vy[count] = vy;
+		count++;
+	}
+
+	/** @return the number of straight segments of the path, one more than the predicted bounces */
+	public int getSegmentCount () {
+		return count;
+	}
+
+	/** @return the time in seconds the segment starts at */
+	public float getStartTime (int segment) {
+		return time[segment];
+	}
+
+	/** @return the time in seconds the segment ends at, the horizon for the last one */
+	public float getEndTime (int segment) {
+		return segment + 1 < count ? time[segment + 1] : horizon;
+	}
+
+	public float getVelocityX (int segment) {
+		return vx[segment];
+	}
+
+	public float getVelocityY (int segment) {
+		return vy[segment];
+	}
+
+	/** @return the segment the ball is on at the given time, times are clamped to [0, horizon] */
+	public int find (float time) {
+		float[] times = this.time;
+		int low = 0, high = count - 1;
+		while (low < high) {
+			int middle = (low + high + 1) >>> 1;
+			if (times[middle] <= time)
+				low = middle;
+			else
+				high = middle - 1;
+		}
+		return low;
+	}
+
+	/** @return the x coordinate at the given time on a segment returned by {@link #find(float)} */
+	public float getX (int segment, float time) {
+		return x[segment] + vx[segment] * (clamp(time) - this.time[segment]);
+	}
+
+	/** @return the y coordinate at the given time on a segment returned by {@link #find(float)} */
+	public float getY (int segment, float time) {
+		return y[segment] + vy[segment] * (clamp(time) - this.time[segment]);
+	}
+
+	private float clamp (float time) {
+		return Math.min(horizon, Math.max(0, time));
+	}
+}
@@ -0,0 +1,387 @@
+package com.fab;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.GL10;
+import com.badlogic.gdx.graphics.Mesh;
+import com.badlogic.gdx.graphics.VertexAttribute;
+import com.badlogic.gdx.graphics.VertexAttributes.Usage;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.BodyDef.BodyType;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.ObjectMap.Entries;
+
+/** Draws the fixture outlines of all bodies of a World, the replacement of Box2DDebugRenderer for large worlds. The outline of a
+ * body is tessellated once by {@link ShapeTessellator} and kept as a template in body local space, every frame the templates
+ * are moved by the transforms of a {@link BodyReadout} into one reused vertex array of x, y and packed color per vertex, which
+ * is uploaded into one Mesh and drawn as lines with a single draw call. Joints, AABBs and contacts are not drawn.
+ *
+ * Static bodies don't move, their outlines are baked once into a second vertex array in world space with its own Mesh, drawn
+ * with a second call and uploaded only when it changed. Only dynamic and kinematic bodies are streamed every frame. The baked
+ * geometry is rebuilt when the number of bodies changes or a body changes its type to or from static. Box2D wakes a body whose
+ * type changes, so the type is only checked for awake bodies. That holds for static bodies too, Box2D puts them to sleep
+ * together with an island that touches them, and setType wakes them like any other body.
+ *
+ * Instead of the whole world a list of bodies can be drawn, the visible ones of a {@link FrustumCuller} for example. The
+ * templates of listed bodies are kept by body, as the lists change from frame to frame, and their transforms are read with the
+ * getters of Body. The templates of bodies that drop off the list are dropped as well, the World hands out the Body object of a
+ * destroyed body again, call {@link #invalidate()} when bodies are destroyed and created between two lists. The baked static
+ * geometry is drawn whole, the GPU clips it. Bodies off the list are not asked for their type, besides the baked ones, a body
+ * that becomes static off screen is baked when it shows up.
+ *
+ * Building the vertices touches no GL, {@link #build(World)} can run and be checked without a window. Templates and colors are
+ * kept per body like the outlines of a {@link TransformSnapshot}, call {@link #invalidate()} after changing the fixtures of a
+ * body or moving a static or sleeping one.
+ *
+ * The streamed bodies can be drawn between the last two steps of a {@link FixedTimestep} instead of where the last step left
+ * them, which hides the stutter of a varying number of steps per frame, see {@link #setInterpolation(FixedTimestep)}. */
+public class BatchRenderer implements Disposable {
+	/** the floats per vertex: x, y and the packed color **/
+	public static final int VERTEX_SIZE = 3;
+
+	/** the colors Box2DDebugRenderer uses **/
+	static final float STATIC = Color.toFloatBits(0.5f, 0.9f, 0.5f, 1);
+	static final float KINEMATIC = Color.toFloatBits(0.5f, 0.5f, 0.9f, 1);
+	static final float AWAKE = Color.toFloatBits(0.9f, 0.7f, 0.7f, 1);
+	static final float ASLEEP = Color.toFloatBits(0.6f, 0.6f, 0.6f, 1);
+
+	private final BodyReadout readout = new BodyReadout();
+	private FloatBuffer transforms = BodyReadout.newBuffer(256);
+
+	/** the outline templates, the type colors and the bodies they belong to, by the index of the readout. The color of dynamic
+	 * bodies is 0, theirs depends on the awake flag of the frame **/
+	private float[][] templates = new float[0][];
+	private float[] colors = new float[0];
+	private Body[] owners = new Body[0];
+
+	/** the templates of the bodies drawn from lists, and the colors of the listed bodies in the current frame **/
+	private final ObjectMap<Body, Template> bodyTemplates = new ObjectMap<Body, Template>();
+	private final FloatArray listColors = new FloatArray();
+	/** counts the lists drawn, templates not stamped with the current one belong to bodies off the list **/
+	private int listFrame;
+
+	/** the steps the bodies are drawn between, null or not interpolating draws the last step **/
+	private FixedTimestep interpolation;
+
+	private float[] vertices = new float[1024];
+	private int vertexCount;
+
+	/** the baked outlines of the static bodies, the body count they were baked for and whether the mesh holds them **/
+	private float[] staticVertices = new float[0];
+	private int staticVertexCount;
+	private int bakedBodyCount = -1;
+	private boolean staticDirty = true, staticUploaded;
+	private final Array<Body> bakeBodies = new Array<Body>(), staticBodies = new Array<Body>();
+
+	private Mesh mesh, staticMesh;
+	private ShaderProgram shader;
+
+	/** tessellates every body again and bakes the static ones in the next frame **/
+	public void invalidate () {
+		for (int i = 0; i < owners.length; i++)
+			owners[i] = null;
+		bodyTemplates.clear();
+		staticBodies.clear();
+		readout.invalidate();
+		staticDirty = true;
+	}
+
+	/** Draws the bodies {@link FixedTimestep#getAlpha()} of the way between the last two steps of the timestep while its
+	 * {@link FixedTimestep#interpolate} is on, instead of where the last step left them. Bodies the timestep doesn't know are
+	 * drawn where they are.
+	 * @param timestep null draws the last step */
+	public void setInterpolation (FixedTimestep timestep) {
+		interpolation = timestep;
+	}
+
+	private boolean isInterpolating () {
+		return interpolation != null && interpolation.interpolate;
+	}
+
+	/** Transforms the outlines of all dynamic and kinematic bodies into the vertex array and bakes the static ones if needed.
+	 * @return the number of vertices, two per line */
+	public int build (World world) {
+		int bodyCount = world.getBodyCount();
+		if (bodyCount != bakedBodyCount) staticDirty = true;
+		if (transforms.capacity() < bodyCount * BodyReadout.STRIDE) transforms = BodyReadout.newBuffer(bodyCount * 2);
+		transforms.clear();
+		int count = readout.read(world, transforms);
+		Array<Body> bodies = readout.getBodies();
+		if (owners.length < count) {
+			float[][] templates = new float[count][];
+			float[] colors = new float[count];
+			Body[] owners = new Body[count];
+			System.arraycopy(this.templates, 0, templates, 0, this.templates.length);
+			System.arraycopy(this.colors, 0, colors, 0, this.colors.length);
+			System.arraycopy(this.owners, 0, owners, 0, this.owners.length);
+			this.templates = templates;
+			this.colors = colors;
+			this.owners = owners;
+		}
+
+		// the size of this frame, all templates and types are known after this pass
+		FloatBuffer transforms = this.transforms;
+		int floats = 0;
+		for (int i = 0, j = 0; i < count; i++, j += BodyReadout.STRIDE) {
+			Body body = bodies.get(i);
+			if (owners[i] != body) {
+				templates[i] = ShapeTessellator.tessellate(body);
+				colors[i] = typeColor(body);
+				owners[i] = body;
+				if (colors[i] == STATIC) staticDirty = true;
+			} else if (transforms.get(j + 3) != 0) {
+				colors[i] = checkType(body, colors[i]);
+			}
+			// a template holds 4 floats per line, the vertices take 6
+			if (colors[i] != STATIC) floats += templates[i].length / 2 * VERTEX_SIZE;
+		}
+		if (staticDirty) bake(world);
+		ensureVertices(floats);
+
+		FixedTimestep interpolation = isInterpolating() ? this.interpolation : null;
+		int v = 0;
+		for (int i = 0, j = 0; i < count; i++, j += BodyReadout.STRIDE) {
+			if (colors[i] == STATIC) continue;
+			float color = colors[i] != 0 ? colors[i] : transforms.get(j + 3) != 0 ? AWAKE : ASLEEP;
+			// the readout and the timestep both list the bodies in the order of World.getBodies
+			int k = interpolation != null ? interpolation.indexOf(bodies.get(i), i) : -1;
+			if (k >= 0)
+				v = put(vertices, v, templates[i], interpolation.getX(k), interpolation.getY(k), interpolation.getAngle(k), color);
+			else
+				v = put(vertices, v, templates[i], transforms.get(j), transforms.get(j + 1), transforms.get(j + 2), color);
+		}
+		vertexCount = v / VERTEX_SIZE;
+		return vertexCount;
+	}
+
+	/** Transforms the outlines of the listed dynamic and kinematic bodies into the vertex array and bakes the static bodies of
+	 * the world if needed.
+	 * @return the number of vertices, two per line */
+	public int build (World world, Array<Body> bodies) {
+		if (world.getBodyCount() != bakedBodyCount) staticDirty = true;
+		FloatArray listColors = this.listColors;
+		listColors.clear();
+		int frame = ++listFrame;
+		int floats = 0;
+		for (int i = 0; i < bodies.size; i++) {
+			Body body = bodies.get(i);
+			Template template = bodyTemplates.get(body);
+			boolean awake = body.isAwake();
+			if (template == null) {
+				template = new Template();
+				template.outline = ShapeTessellator.tessellate(body);
+				template.color = typeColor(body);
+				bodyTemplates.put(body, template);
+				if (template.color == STATIC && !staticBodies.contains(body, true)) staticDirty = true;
+			} else if (awake) {
+				template.color = checkType(body, template.color);
+			}
+			template.frame = frame;
+			listColors.add(template.color != 0 ? template.color : awake ? AWAKE : ASLEEP);
+			if (template.color != STATIC) floats += template.outline.length / 2 * VERTEX_SIZE;
+		}
+		// the World pools its Body objects, a destroyed body comes back as the next created one and must not keep its outline
+		if (bodyTemplates.size > bodies.size) pruneTemplates(frame);
+		// bodies off the list are not looked at, one of the baked ones may have stopped being static there
+		for (int i = 0; i < staticBodies.size && !staticDirty; i++)
+			if (staticBodies.get(i).getType() != BodyType.StaticBody) staticDirty = true;
+		if (staticDirty) bake(world);
+		ensureVertices(floats);
+
+		FixedTimestep interpolation = isInterpolating() ? this.interpolation : null;
+		int v = 0;
+		for (int i = 0; i < bodies.size; i++) {
+			float color = listColors.get(i);
+			if (color == STATIC) continue;
+			Body body = bodies.get(i);
+			float[] outline = bodyTemplates.get(body).outline;
+			int k = interpolation != null ? interpolation.indexOf(body, -1) : -1;
+			if (k >= 0)
+				v = put(vertices, v, outline, interpolation.getX(k), interpolation.getY(k), interpolation.getAngle(k), color);
+			else {
+				Vector2 position = body.getPosition();
+				v = put(vertices, v, outline, position.x, position.y, body.getAngle(), color);
+			}
+		}
+		vertexCount = v / VERTEX_SIZE;
+		return vertexCount;
+	}
+
+	/** drops the templates of the bodies not listed in the frame **/
+	private void pruneTemplates (int frame) {
+		Entries<Body, Template> entries = bodyTemplates.entries();
+		while (entries.hasNext())
+			if (entries.next().value.frame != frame) entries.remove();
+	}
+
+	/** @return the color of static and kinematic bodies, 0 for dynamic ones */
+	private static float typeColor (Body body) {
+		BodyType type = body.getType();
+		return type == BodyType.StaticBody ? STATIC : type == BodyType.KinematicBody ? KINEMATIC : 0;
+	}
+
+	/** @return the type color of an awake body, the static geometry is baked again if it became or stopped being static */
+	private float checkType (Body body, float color) {
+		float type = typeColor(body);
+		if (type != color && (type == STATIC || color == STATIC)) staticDirty = true;
+		return type;
+	}
+
+	/** moves the outlines of all static bodies into world space **/
+	private void bake (World world) {
+		Array<Body> bodies = bakeBodies;
+		world.getBodies(bodies);
+		staticBodies.clear();
+		int v = 0;
+		for (int i = 0; i < bodies.size; i++) {
+			Body body = bodies.get(i);
+			if (body.getType() != BodyType.StaticBody) continue;
+			staticBodies.add(body);
+			float[] outline = ShapeTessellator.tessellate(body);
+			if (staticVertices.length < v + outline.length / 2 * VERTEX_SIZE)
+				staticVertices = Arrays.copyOf(staticVertices, Math.max(v + outline.length / 2 * VERTEX_SIZE, staticVertices.length * 2));
+			Vector2 position = body.getPosition();
+			v = put(staticVertices, v, outline, position.x, position.y, body.getAngle(), STATIC);
+		}
+		bodies.clear();
+		staticVertexCount = v / VERTEX_SIZE;
+		bakedBodyCount = world.getBodyCount();
+		staticDirty = false;
+		staticUploaded = false;
+	}
+
+	private void ensureVertices (int floats) {
+		if (vertices.length < floats) vertices = new float[Math.max(floats, vertices.length * 2)];
+	}
+
+	/** writes the template moved by the transform from the v-th float on and returns the float behind it **/
+	private static int put (float[] vertices, int v, float[] template, float x, float y, float angle, float color) {
+		float cos = (float)Math.cos(angle), sin = (float)Math.sin(angle);
+		for (int k = 0; k < template.length; k += 2) {
+			float px = template[k], py = template[k + 1];
+			vertices[v++] = x + cos * px - sin * py;
+			vertices[v++] = y + sin * px + cos * py;
+			vertices[v++] = color;
+		}
+		return v;
+	}
+
+	/** @return the streamed vertices of the last build, {@link #VERTEX_SIZE} floats each */
+	public float[] getVertices () {
+		return vertices;
+	}
+
+	public int getVertexCount () {
+		return vertexCount;
+	}
+
+	/** @return the baked vertices of the static bodies, {@link #VERTEX_SIZE} floats each */
+	public float[] getStaticVertices () {
+		return staticVertices;
+	}
+
+	public int getStaticVertexCount () {
+		return staticVertexCount;
+	}
+
+	/** Builds the vertices of all bodies and draws them. */
+	public void render (World world, Matrix4 projMatrix) {
+		build(world);
+		draw(projMatrix);
+	}
+
+	/** Builds the vertices of the listed bodies and draws them with the static bodies of the world. */
+	public void render (World world, Array<Body> bodies, Matrix4 projMatrix) {
+		build(world, bodies);
+		draw(projMatrix);
+	}
+
+	private void draw (Matrix4 projMatrix) {
+		if (staticVertexCount > 0 && !staticUploaded) {
+			if (staticMesh == null || staticMesh.getMaxVertices() < staticVertexCount) {
+				if (staticMesh != null) staticMesh.dispose();
+				staticMesh = createMesh(true, staticVertexCount);
+			}
+			staticMesh.setVertices(staticVertices, 0, staticVertexCount * VERTEX_SIZE);
+			staticUploaded = true;
+		}
+		if (vertexCount > 0) {
+			if (mesh == null || mesh.getMaxVertices() < vertexCount) {
+				if (mesh != null) mesh.dispose();
+				mesh = createMesh(false, Math.max(vertexCount, vertices.length / VERTEX_SIZE));
+			}
+			mesh.setVertices(vertices, 0, vertexCount * VERTEX_SIZE);
+		}
+
+		if (Gdx.graphics.isGL20Available()) {
+			if (shader == null) shader = createShader();
+			shader.begin();
+			shader.setUniformMatrix("u_projTrans", projMatrix);
+			if (staticVertexCount > 0) staticMesh.render(shader, GL10.GL_LINES, 0, staticVertexCount);
+			if (vertexCount > 0) mesh.render(shader, GL10.GL_LINES, 0, vertexCount);
+			shader.end();
+		} else {
+			GL10 gl = Gdx.gl10;
+			gl.glMatrixMode(GL10.GL_PROJECTION);
+			gl.glLoadMatrixf(projMatrix.val, 0);
+			gl.glMatrixMode(GL10.GL_MODELVIEW);
+			gl.glLoadIdentity();
+			if (staticVertexCount > 0) staticMesh.render(GL10.GL_LINES, 0, staticVertexCount);
+			if (vertexCount > 0) mesh.render(GL10.GL_LINES, 0, vertexCount);
+		}
+	}
+
+	private static Mesh createMesh (boolean isStatic, int maxVertices) {
+		return new Mesh(isStatic, maxVertices, 0, new VertexAttribute(Usage.Position, 2, ShaderProgram.POSITION_ATTRIBUTE),
+			new VertexAttribute(Usage.ColorPacked, 4, ShaderProgram.COLOR_ATTRIBUTE));
+	}
+
+	static class Template {
+		float[] outline;
+		/** see {@link BatchRenderer#colors} **/
+		float color;
+		/** the last list the body was on **/
+		int frame;
+	}
+
+	private static ShaderProgram createShader () {
+		String vertex = "attribute vec4 " + ShaderProgram.POSITION_ATTRIBUTE + ";\n" //
+			+ "attribute vec4 " + ShaderProgram.COLOR_ATTRIBUTE + ";\n" //
+			+ "uniform mat4 u_projTrans;\n" //
+			+ "varying vec4 v_color;\n" //
+			+ "void main () {\n" //
+			+ "	v_color = " + ShaderProgram.COLOR_ATTRIBUTE + ";\n" //
+			+ "	gl_Position = u_projTrans * " + ShaderProgram.POSITION_ATTRIBUTE + ";\n" //
+			+ "}\n";
+		String fragment = "#ifdef GL_ES\nprecision mediump float;\n#endif\n" //
+			+ "varying vec4 v_color;\n" //
+			+ "void main () {\n" //
+			+ "	gl_FragColor = v_color;\n" //
+			+ "}\n";
+		ShaderProgram shader = new ShaderProgram(vertex, fragment);
+		if (!shader.isCompiled()) throw new GdxRuntimeException("Couldn't compile the outline shader: " + shader.getLog());
+		return shader;
+	}
+
+	@Override
+	public void dispose () {
+		if (mesh != null) mesh.dispose();
+		if (staticMesh != null) staticMesh.dispose();
+		if (shader != null) shader.dispose();
+		mesh = null;
+		staticMesh = null;
+		shader = null;
+		staticUploaded = false;
+	}
+}
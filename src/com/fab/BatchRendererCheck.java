@@ -0,0 +1,85 @@
+package com.fab;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.BodyDef.BodyType;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxNativesLoader;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+/** Checks the vertices the {@link BatchRenderer} builds without a window: steps a few scenes and compares every emitted vertex
+ * with the template point moved by Body.getWorldPoint, and every color with the type and awake flag of its body. Static bodies
+ * are compared with the baked vertices, the others with the streamed ones, both in the order of World.getBodies. A mismatch
+ * fails the check with an exception.
+ *
+ * Usage: BatchRendererCheck [scene...] */
+public class BatchRendererCheck {
+	public static final String[] SCENES = {"Pyramid", "Bridge"};
+
+	/** the largest allowed distance in meters, the renderer rotates with floats **/
+	static final float TOLERANCE = 1e-4f;
+	static final int STEPS = 400;
+	/** the steps between two checks **/
+	static final int INTERVAL = 50;
+
+	/** Builds the vertices of the scene and compares them.
+	 * @return the number of vertices compared */
+	static int check (String name, PhysicsScene scene, BatchRenderer renderer) {
+		int count = renderer.build(scene.getWorld());
+		float[] vertices = renderer.getVertices(), staticVertices = renderer.getStaticVertices();
+		Array<Body> bodies = new Array<Body>();
+		scene.getWorld().getBodies(bodies);
+		Vector2 point = new Vector2();
+
+		int v = 0, s = 0;
+		for (Body body : bodies) {
+			boolean isStatic = body.getType() == BodyType.StaticBody;
+			float color = isStatic ? BatchRenderer.STATIC : body.getType() == BodyType.KinematicBody ? BatchRenderer.KINEMATIC
+				: body.isAwake() ? BatchRenderer.AWAKE : BatchRenderer.ASLEEP;
+			float[] outline = ShapeTessellator.tessellate(body);
+			for (int i = 0; i < outline.length; i += 2) {
+				Vector2 expected = body.getWorldPoint(point.set(outline[i], outline[i + 1]));
+				float[] actual = isStatic ? staticVertices : vertices;
+				int k = isStatic ? s : v;
+				if (k + 2 >= actual.length) throw new GdxRuntimeException(name + ": too few vertices");
+				if (Math.abs(actual[k] - expected.x) > TOLERANCE || Math.abs(actual[k + 1] - expected.y) > TOLERANCE)
+					throw new GdxRuntimeException(name + ": vertex " + k / BatchRenderer.VERTEX_SIZE + " is at " + actual[k] + ", "
+						+ actual[k + 1] + " instead of " + expected);
+				if (actual[k + 2] != color) throw new GdxRuntimeException(name + ": vertex " + k / BatchRenderer.VERTEX_SIZE
+					+ " has the wrong color");
+				if (isStatic)
+					s += BatchRenderer.VERTEX_SIZE;
+				else
+					v += BatchRenderer.VERTEX_SIZE;
+			}
+		}
+		if (v != count * BatchRenderer.VERTEX_SIZE)
+			throw new GdxRuntimeException(name + ": " + count + " vertices instead of " + v / BatchRenderer.VERTEX_SIZE);
+		if (s != renderer.getStaticVertexCount() * BatchRenderer.VERTEX_SIZE)
+			throw new GdxRuntimeException(name + ": " + renderer.getStaticVertexCount() + " static vertices instead of " + s
+				/ BatchRenderer.VERTEX_SIZE);
+		return (v + s) / BatchRenderer.VERTEX_SIZE;
+	}
+
+	public static void main (String[] args) {
+		GdxNativesLoader.load();
+		String[] scenes = args.length > 0 ? args : SCENES;
+		for (String name : scenes) {
+			PhysicsScene scene = SceneRegistry.create(name);
+			scene.makeDeterministic(1);
+			scene.createPhysics();
+			BatchRenderer renderer = new BatchRenderer();
+			int vertices = 0;
+			try {
+				// from the first step to a settled scene, the colors change as the bodies fall asleep
+				for (int step = 0; step < STEPS; step++) {
+					scene.step(1 / 60f);
+					if (step % INTERVAL == 0) vertices += check(name, scene, renderer);
+				}
+			} finally {
+				scene.disposePhysics();
+			}
+			System.out.println(name + ": " + vertices + " vertices match");
+		}
+	}
+}
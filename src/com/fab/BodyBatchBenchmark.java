@@ -0,0 +1,68 @@
+package com.fab;
+
+import java.util.Locale;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.BodyDef;
+import com.badlogic.gdx.physics.box2d.BodyDef.BodyType;
+import com.badlogic.gdx.physics.box2d.PolygonShape;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.GdxNativesLoader;
+import com.badlogic.gdx.utils.TimeUtils;
+
+/** Compares creating boxes one by one with fresh definitions and creating them with a {@link BodyBatchBuilder}: the fastest
+ * of {@link WorldSnapshot#REPEATS} builds and the bytes allocated per body, for a few body counts.
+ *
+ * Usage: BodyBatchBenchmark */
+public class BodyBatchBenchmark {
+	static final int[] COUNTS = {1000, 10000, 50000};
+
+	public static void main (String[] args) {
+		GdxNativesLoader.load();
+		PolygonShape box = new PolygonShape();
+		box.setAsBox(0.5f, 0.5f);
+		BodyBatchBuilder builder = new BodyBatchBuilder().set(box, 1);
+
+		System.out.println("bodies,single_ms,batch_ms,single_bodies_per_s,batch_bodies_per_s,single_bytes_per_body,batch_bytes_per_body");
+		for (int count : COUNTS) {
+			// a square grid, the positions don't matter as no step is taken
+			float[] positions = new float[count * 2];
+			int columns = (int)Math.ceil(Math.sqrt(count));
+			for (int i = 0; i < count; i++) {
+				positions[2 * i] = i % columns * 1.1f;
+				positions[2 * i + 1] = i / columns * 1.1f;
+			}
+
+			// the fastest of several builds, the first ones load classes and run interpreted
+			long singleTime = Long.MAX_VALUE, batchTime = Long.MAX_VALUE;
+			long singleBytes = 0, batchBytes = 0;
+			for (int repeat = 0; repeat < WorldSnapshot.REPEATS; repeat++) {
+				World world = new World(new Vector2(0, -10), true);
+				long startBytes = MicroBenchmark.allocatedBytes();
+				long startTime = TimeUtils.nanoTime();
+				for (int i = 0; i < count; i++) {
+					BodyDef bd = new BodyDef();
+					bd.type = BodyType.DynamicBody;
+					bd.position.set(positions[2 * i], positions[2 * i + 1]);
+					Body body = world.createBody(bd);
+					body.createFixture(box, 1);
+				}
+				singleTime = Math.min(singleTime, TimeUtils.nanoTime() - startTime);
+				singleBytes = MicroBenchmark.allocatedBytes() - startBytes;
+				world.dispose();
+
+				world = new World(new Vector2(0, -10), true);
+				startBytes = MicroBenchmark.allocatedBytes();
+				builder.build(world, positions, count);
+				batchBytes = MicroBenchmark.allocatedBytes() - startBytes;
+				batchTime = Math.min(batchTime, builder.lastTime);
+				world.dispose();
+			}
+
+			System.out.println(String.format(Locale.US, "%d,%.3f,%.3f,%.0f,%.0f,%d,%d", count, singleTime / 1000000.0,
+				batchTime / 1000000.0, count * 1e9 / singleTime, count * 1e9 / batchTime, singleBytes / count, batchBytes / count));
+		}
+		box.dispose();
+	}
+}
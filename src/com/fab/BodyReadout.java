@@ -0,0 +1,80 @@
+package com.fab;
+
+import java.nio.FloatBuffer;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.BufferUtils;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+/** Reads the transforms of all bodies of a {@link World} into a caller owned direct FloatBuffer in one pass, {@link #STRIDE}
+ * floats per body: x, y, angle and 1 for an awake body or 0 for a sleeping one. The layout suits vertex attributes, recorders
+ * and network packets alike, {@link #getBodies()} tells which body a record belongs to.
+ *
+ * Every getter of Body is a JNI call of its own, three per body. The readout keeps the values of the last pass and asks a
+ * sleeping body only whether it is still asleep, Box2D doesn't move sleeping bodies, so a settled scene costs one call per
+ * body. A body is read once more in the pass after it fell asleep, to get the transform of its last step. Only setTransform
+ * moves a body without waking it, and the World pools its Body objects, so a body created asleep may take the place of a
+ * destroyed one, call {@link #invalidate()} after either. The values are staged in an array and written with a single bulk
+ * put, the individual puts of a direct buffer are checked calls each. */
+public class BodyReadout {
+	/** the floats per body **/
+	public static final int STRIDE = 4;
+
+	private final Array<Body> bodies = new Array<Body>();
+	/** the values of the last pass and the bodies they were read from **/
+	private float[] values = new float[0];
+	private Body[] owners = new Body[0];
+	private boolean invalid;
+
+	/** @return a direct buffer in native order for the given number of bodies */
+	public static FloatBuffer newBuffer (int bodies) {
+		return BufferUtils.newFloatBuffer(bodies * STRIDE);
+	}
+
+	/** reads every body in the next pass, after moving sleeping bodies with setTransform or creating sleeping ones **/
+	public void invalidate () {
+		invalid = true;
+	}
+
+	/** Writes the records of all bodies to the buffer from its position on and advances the position behind them.
+	 * @return the number of bodies written */
+	public int read (World world, FloatBuffer buffer) {
+		world.getBodies(bodies);
+		int count = bodies.size;
+		if (buffer.remaining() < count * STRIDE)
+			throw new GdxRuntimeException("The buffer has room for " + buffer.remaining() / STRIDE + " bodies, not " + count);
+		if (owners.length < count) {
+			values = new float[count * STRIDE];
+			owners = new Body[count];
+		}
+
+		float[] values = this.values;
+		Body[] owners = this.owners;
+		boolean invalid = this.invalid;
+		for (int i = 0, j = 0; i < count; i++, j += STRIDE) {
+			Body body = bodies.get(i);
+			boolean awake = body.isAwake();
+			// bodies that slept through the last pass as well are still where they were
+			if (awake || invalid || owners[i] != body || values[j + 3] != 0) {
+				Vector2 position = body.getPosition();
+				values[j] = position.x;
+				values[j + 1] = position.y;
+				values[j + 2] = body.getAngle();
+				owners[i] = body;
+			}
+			values[j + 3] = awake ? 1 : 0;
+		}
+		this.invalid = false;
+
+		buffer.put(values, 0, count * STRIDE);
+		return count;
+	}
+
+	/** @return the bodies of the last pass in the order of their records, valid until the next pass */
+	public Array<Body> getBodies () {
+		return bodies;
+	}
+}
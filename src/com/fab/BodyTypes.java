@@ -146,7 +146,7 @@ public class BodyTypes extends Box2DTest {
 	}
 
 	@Override
-	public void render () {
+	public void step (float timeStep) {
 		if (m_platform.getType() == BodyType.KinematicBody) {
 			Vector2 p = m_platform.getTransform().getPosition();
 			Vector2 v = m_platform.getLinearVelocity();
@@ -157,6 +157,11 @@ public class BodyTypes extends Box2DTest {
 			}
 		}
 
+		super.step(timeStep);
+	}
+
+	@Override
+	public void render () {
 		super.render();
 
 		// if (renderer.batch != null) {
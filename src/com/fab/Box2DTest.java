@@ -28,9 +28,13 @@
 
 package com.fab;
 
+import java.util.Random;
+
 import com.badlogic.gdx.ApplicationListener;
 import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.InputMultiplexer;
 import com.badlogic.gdx.InputProcessor;
+import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.GL10;
 import com.badlogic.gdx.graphics.OrthographicCamera;
 import com.badlogic.gdx.graphics.g2d.BitmapFont;
@@ -51,13 +55,23 @@ import com.badlogic.gdx.utils.TimeUtils;
 /** Base class for all Box2D Testbed tests, all subclasses must implement the createWorld() method.
  * 
  * @author badlogicgames@gmail.com */
-public abstract class Box2DTest implements ApplicationListener, InputProcessor {
+public abstract class Box2DTest implements ApplicationListener, InputProcessor, PhysicsScene {
 	/** the camera **/
 	protected OrthographicCamera camera;
 
 	/** the renderer **/
 	protected Box2DDebugRenderer renderer;
 
+	/** whether the bodies are drawn by the {@link BatchRenderer} instead of the debug renderer, which draws joints as well **/
+	protected boolean useBatchRenderer = false;
+	protected BatchRenderer batchRenderer;
+
+	/** whether the batch renderer only draws the bodies in view of the camera **/
+	protected boolean useCulling = true;
+	protected final FrustumCuller culler = new FrustumCuller();
+	/** the bodies drawn in the last frame, -1 without culling **/
+	int visibleBodies = -1;
+
 	SpriteBatch batch;
 	BitmapFont font;
 
@@ -75,14 +89,70 @@ public abstract class Box2DTest implements ApplicationListener, InputProcessor {
 
 	protected abstract void createWorld (World world);
 
+	/** the scene description or compiled scene the world is loaded from instead of {@link #createWorld(World)}, see
+	 * {@link SceneCache} **/
+	protected String scenePath;
+
+	/** loads the scene files of all tests **/
+	private static SceneCache sceneCache;
+
 	/** temp vector **/
 	protected Vector2 tmp = new Vector2();
 
+	/** whether the world is advanced in fixed steps or by the frame time **/
+	protected boolean useFixedTimestep = true;
+
+	/** the accumulator for the fixed steps **/
+	protected FixedTimestep timestep = new FixedTimestep();
+
+	/** whether the world is stepped on its own thread, the renderer then only draws the published snapshots **/
+	protected boolean useSimulationThread = false;
+
+	/** the simulation thread and the renderer for its snapshots, only set with {@link #useSimulationThread} **/
+	protected SimulationThread simulation;
+	protected SnapshotRenderer snapshotRenderer;
+
+	/** stops stepping and rendering while every body sleeps, not used with {@link #useSimulationThread} **/
+	protected IdleRendering idle = new IdleRendering();
+
+	/** the frame times shown in the HUD **/
+	protected FrameMetrics metrics = new FrameMetrics();
+
+	/** chooses the solver iterations of every step **/
+	protected AdaptiveIterations iterations = new AdaptiveIterations();
+
+	/** the random generator of the scene, seeded by {@link #makeDeterministic(long)} **/
+	protected final Random random = new Random();
+
+	/** records the session into this file for the {@link SessionReplayer} when set **/
+	protected String recordPath = System.getProperty("fab.record");
+	protected SessionRecorder recorder;
+
+	/** the screen size for unprojecting touches, set by {@link #resize(int, int)} **/
+	protected int screenWidth, screenHeight;
+
+	/** advances the world by a single step, subclasses put their per step logic here **/
+	@Override
+	public void step (float timeStep) {
+		iterations.step(world, timeStep, timestep.getFrameSteps());
+	}
+
 	@Override
 	public void render () {
-		// update the world with a fixed time step
+		if (simulation != null) {
+			renderSnapshot();
+			return;
+		}
+
+		// update the world with a fixed time step, unless it is idle
 		long startTime = TimeUtils.nanoTime();
-		world.step(Gdx.app.getGraphics().getDeltaTime(), 3, 3);
+		float deltaTime = idle.getDeltaTime(Gdx.graphics.getDeltaTime());
+		if (idle.isScheduledWake()) skipWakeTime();
+		FixedTimestep.Stepper stepper = recorder != null ? recorder : this;
+		if (useFixedTimestep)
+			timestep.update(world, deltaTime, stepper);
+		else if (deltaTime > 0)
+			stepper.step(deltaTime);
 		float updateTime = (TimeUtils.nanoTime() - startTime) / 1000000000.0f;
 
 		startTime = TimeUtils.nanoTime();
@@ -90,15 +160,80 @@ public abstract class Box2DTest implements ApplicationListener, InputProcessor {
 		Gdx.gl.glClear(GL10.GL_COLOR_BUFFER_BIT);
 		camera.update();
 
-		// render the world using the debug renderer
-		renderer.render(world, camera.combined);
+		// render the world using the batch or the debug renderer
+		visibleBodies = -1;
+		if (!useBatchRenderer) {
+			renderer.render(world, camera.combined);
+		} else if (useCulling) {
+			visibleBodies = culler.cull(world, camera);
+			batchRenderer.render(world, culler.getBodies(), camera.combined);
+		} else {
+			batchRenderer.render(world, camera.combined);
+		}
 		float renderTime = (TimeUtils.nanoTime() - startTime) / 1000000000.0f;
 
+		drawHud(updateTime, renderTime, deltaTime);
+
+		if (idle.update(world)) {
+			float wakeTime = getWakeTime();
+			if (wakeTime >= 0) idle.wakeAfter(wakeTime);
+		}
+	}
+
+	/** @return the seconds until the scene changes the world on its own, negative if it never does. An idle scene wakes up
+	 * for it and steps until the scene calls {@link IdleRendering#release()} on {@link #idle} */
+	protected float getWakeTime () {
+		return -1;
+	}
+
+	/** Called on the first frame after the scheduled wake, scenes counting {@link #getWakeTime()} in steps move the count on to
+	 * the event here, the steps were not taken while idle. */
+	protected void skipWakeTime () {
+	}
+
+	/** Drops the outlines the renderers keep by Body, call after destroying bodies and creating others. The World hands the
+	 * Body object of a destroyed body out again for the next one created, which would keep the old outline. Runs on the thread
+	 * that steps the world, the simulation thread tessellates again before its next snapshot. */
+	protected void invalidateOutlines () {
+		if (simulation != null)
+			simulation.invalidateOutlines();
+		else if (batchRenderer != null) batchRenderer.invalidate();
+	}
+
+	/** draws the latest snapshot of the simulation thread, the world is not touched here **/
+	private void renderSnapshot () {
+		TransformSnapshot snapshot = simulation.acquire();
+
+		long startTime = TimeUtils.nanoTime();
+		Gdx.gl.glClear(GL10.GL_COLOR_BUFFER_BIT);
+		camera.update();
+		snapshotRenderer.render(snapshot, camera.combined);
+		float renderTime = (TimeUtils.nanoTime() - startTime) / 1000000000.0f;
+
+		drawHud(snapshot.stepTime, renderTime, Gdx.graphics.getDeltaTime());
+	}
+
+	/** records the frame and draws the HUD, without allocating **/
+	private void drawHud (float updateTime, float renderTime, float frameTime) {
+		StringBuilder text = formatHud(updateTime, renderTime, frameTime, Gdx.graphics.getFramesPerSecond());
+		int lines = FrameMetrics.lineCount(text);
+
 		batch.begin();
-		font.draw(batch, "fps:" + Gdx.graphics.getFramesPerSecond() + ", update: " + updateTime + ", render: " + renderTime, 0, 20);
+		font.drawMultiLine(batch, text, 0, lines * font.getLineHeight() + 5);
 		batch.end();
 	}
 
+	/** Records the frame and writes the HUD text into the reused builder of the metrics, without allocating, see
+	 * {@link AllocationCheck}. */
+	StringBuilder formatHud (float updateTime, float renderTime, float frameTime, int fps) {
+		metrics.add(updateTime, renderTime, frameTime);
+		StringBuilder text = metrics.format(fps);
+		text.append("\niterations: ").append(iterations.getVelocityIterations()).append('/')
+			.append(iterations.getPositionIterations());
+		if (visibleBodies >= 0) text.append("\nvisible: ").append(visibleBodies).append('/').append(world.getBodyCount());
+		return text;
+	}
+
 	@Override
 	public void create () {
 		// setup the camera. In Box2D we operate on a
@@ -108,14 +243,58 @@ public abstract class Box2DTest implements ApplicationListener, InputProcessor {
 		// We also position the camera so that it
 		// looks at (0,16) (that's where the middle of the
 		// screen will be located).
-		camera = new OrthographicCamera(48, 32);
-		camera.position.set(0, 15, 0);
+		createCamera();
+		screenWidth = Gdx.graphics.getWidth();
+		screenHeight = Gdx.graphics.getHeight();
 
 		// create the debug renderer
 		renderer = new Box2DDebugRenderer();
+		batchRenderer = new BatchRenderer();
+		// the batch renderer draws the bodies between the last two fixed steps, the debug renderer can only draw the last
+		if (useBatchRenderer && useFixedTimestep) {
+			timestep.interpolate = true;
+			batchRenderer.setInterpolation(timestep);
+		}
+
+		if (recordPath != null) {
+			long seed = TimeUtils.nanoTime();
+			makeDeterministic(seed);
+			recorder = new SessionRecorder(this, this, seed, screenWidth, screenHeight, recordPath);
+		}
+		createPhysics();
 
-		// create the world
-		world = new World(new Vector2(0, -10), true);
+		batch = new SpriteBatch();
+		font = new BitmapFont(Gdx.files.internal("data/arial-15.fnt"), false);
+
+		if (useSimulationThread) {
+			// input is replayed on the simulation thread, the handlers below may then touch the world
+			snapshotRenderer = new SnapshotRenderer();
+			if (recorder != null)
+				simulation = new SimulationThread(recorder, timestep.stepSize, recorder);
+			else
+				simulation = new SimulationThread(this, timestep.stepSize, this);
+			Gdx.input.setInputProcessor(simulation.getInput());
+			simulation.start();
+		} else {
+			// any input wakes an idle scene before it is handled
+			Gdx.input.setInputProcessor(new InputMultiplexer(idle, recorder != null ? recorder : this));
+		}
+	}
+
+	/** sets up the camera, the {@link SessionReplayer} needs it without a window to unproject the recorded touches **/
+	void createCamera () {
+		camera = new OrthographicCamera(48, 32);
+		camera.position.set(0, 15, 0);
+		camera.update();
+	}
+
+	@Override
+	public void createPhysics () {
+		// create the world, or load it with its content
+		if (scenePath != null)
+			world = loadScene(scenePath);
+		else
+			world = new World(new Vector2(0, -10), true);
 
 		// we also need an invisible zero size ground body
 		// to which we can connect the mouse joint
@@ -123,21 +302,69 @@ public abstract class Box2DTest implements ApplicationListener, InputProcessor {
 		groundBody = world.createBody(bodyDef);
 
 		// call abstract method to populate the world
-		createWorld(world);
+		if (scenePath == null) createWorld(world);
+	}
 
-		batch = new SpriteBatch();
-		font = new BitmapFont(Gdx.files.internal("data/arial-15.fnt"), false);
+	private static synchronized World loadScene (String path) {
+		if (sceneCache == null) sceneCache = new SceneCache();
+		// internal files need the backend, headless runs take the path as it is or look into the assets from the project root
+		FileHandle file = Gdx.files != null ? Gdx.files.internal(path) : new FileHandle(path);
+		if (Gdx.files == null && !file.exists()) file = new FileHandle("assets/" + path);
+		return sceneCache.load(file);
+	}
+
+	/** the tests without arguments, sized ones return their size **/
+	@Override
+	public String[] getParameters () {
+		return new String[0];
+	}
+
+	@Override
+	public World getWorld () {
+		return world;
+	}
+
+	@Override
+	public void makeDeterministic (long seed) {
+		random.setSeed(seed);
+		// adaptive iterations follow the measured step times, use the fixed counts
+		iterations.adaptive = false;
+	}
+
+	@Override
+	public AdaptiveIterations getIterations () {
+		return iterations;
 	}
 
 	@Override
 	public void dispose () {
+		if (simulation != null) {
+			simulation.shutdown();
+			simulation = null;
+			snapshotRenderer.dispose();
+			snapshotRenderer = null;
+		}
+		if (recorder != null) {
+			recorder.close();
+			recorder = null;
+		}
 		renderer.dispose();
+		renderer = null;
+		batchRenderer.dispose();
+		batchRenderer = null;
+		idle.dispose();
+
+		disposePhysics();
+	}
+
+	@Override
+	public void disposePhysics () {
 		world.dispose();
 
-		renderer = null;
 		world = null;
 		mouseJoint = null;
 		hitBody = null;
+		timestep.reset();
 	}
 
 	@Override
@@ -173,7 +400,7 @@ public abstract class Box2DTest implements ApplicationListener, InputProcessor {
 	@Override
 	public boolean touchDown (int x, int y, int pointer, int button) {
 		// translate the mouse coordinates to world coordinates
-		camera.unproject(testPoint.set(x, y, 0));
+		unproject(x, y);
 		// ask the world which bodies are within the given
 		// bounding box around the mouse pointer
 		hitBody = null;
@@ -201,6 +428,14 @@ public abstract class Box2DTest implements ApplicationListener, InputProcessor {
 		return false;
 	}
 
+	/** unprojects screen coordinates into {@link #testPoint} like Camera.unproject, which reads the screen height from
+	 * Gdx.graphics even when given the viewport, with the stored screen size **/
+	void unproject (int x, int y) {
+		float ndcX = 2f * x / screenWidth - 1;
+		float ndcY = 2f * (screenHeight - y - 1) / screenHeight - 1;
+		testPoint.set(ndcX, ndcY, -1).prj(camera.invProjectionView);
+	}
+
 	/** another temporary vector **/
 	Vector2 target = new Vector2();
 
@@ -210,7 +445,7 @@ public abstract class Box2DTest implements ApplicationListener, InputProcessor {
 		// the target of the joint based on the new
 		// mouse coordinates
 		if (mouseJoint != null) {
-			camera.unproject(testPoint.set(x, y, 0));
+			unproject(x, y);
 			mouseJoint.setTarget(target.set(testPoint.x, testPoint.y));
 		}
 		return false;
@@ -245,6 +480,7 @@ public abstract class Box2DTest implements ApplicationListener, InputProcessor {
 	}
 
 	public void resize (int width, int height) {
-
+		screenWidth = width;
+		screenHeight = height;
 	}
 }
@@ -40,7 +40,21 @@ import com.badlogic.gdx.physics.box2d.World;
 import com.badlogic.gdx.physics.box2d.joints.RevoluteJointDef;
 
 public class Bridge extends Box2DTest {
-	int e_count = 30;
+	final int e_count;
+
+	public Bridge () {
+		this(30);
+	}
+
+	/** a bridge of the given number of planks from x = -15 to the right **/
+	public Bridge (int planks) {
+		e_count = planks;
+	}
+
+	@Override
+	public String[] getParameters () {
+		return new String[] {String.valueOf(e_count)};
+	}
 
 	@Override
 	protected void createWorld (World world) {
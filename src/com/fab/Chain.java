@@ -39,6 +39,20 @@ import com.badlogic.gdx.physics.box2d.World;
 import com.badlogic.gdx.physics.box2d.joints.RevoluteJointDef;
 
 public class Chain extends Box2DTest {
+	final int e_count;
+
+	public Chain () {
+		this(30);
+	}
+
+	public Chain (int links) {
+		e_count = links;
+	}
+
+	@Override
+	public String[] getParameters () {
+		return new String[] {String.valueOf(e_count)};
+	}
 
 	@Override
 	protected void createWorld (World world) {
@@ -70,7 +84,7 @@ public class Chain extends Box2DTest {
 			float y = 25.0f;
 			Body prevBody = ground;
 
-			for (int i = 0; i < 30; i++) {
+			for (int i = 0; i < e_count; i++) {
 				BodyDef bd = new BodyDef();
 				bd.type = BodyType.DynamicBody;
 				bd.position.set(0.5f + i, y);
@@ -79,15 +79,30 @@ public class ContinuousTest extends Box2DTest {
 
 	private void launch () {
 		m_body.setTransform(new Vector2(0, 20), 0);
-		m_angularVelocity = (float)Math.random() * 100 - 50;
+		m_angularVelocity = random.nextFloat() * 100 - 50;
 		m_body.setLinearVelocity(new Vector2(0, -100));
 		m_body.setAngularVelocity(m_angularVelocity);
+		// the launch an idle scene was woken for
+		idle.release();
 	}
 
-	public void render () {
-		super.render();
+	@Override
+	public void step (float timeStep) {
+		super.step(timeStep);
 
 		m_stepCount++;
 		if (m_stepCount % 60 == 0) launch();
 	}
+
+	@Override
+	protected float getWakeTime () {
+		// the next launch
+		return (60 - m_stepCount % 60) * timestep.stepSize;
+	}
+
+	@Override
+	protected void skipWakeTime () {
+		// launch on the next step
+		m_stepCount += 59 - m_stepCount % 60;
+	}
 }
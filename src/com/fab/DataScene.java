@@ -0,0 +1,26 @@
+package com.fab;
+
+import com.badlogic.gdx.physics.box2d.World;
+
+/** Shows a scene loaded from a file instead of Java code, a description like data/scenes/bridge.json or its compiled form.
+ * The file is given by the property fab.scene, by default the pyramid. Bodies out of view are culled. */
+public class DataScene extends Box2DTest {
+	public DataScene () {
+		this(System.getProperty("fab.scene", "data/scenes/pyramid.json"));
+	}
+
+	public DataScene (String path) {
+		scenePath = path;
+		// scenes from files can be large, they are drawn batched and culled
+		useBatchRenderer = true;
+	}
+
+	@Override
+	public String[] getParameters () {
+		return new String[] {scenePath};
+	}
+
+	@Override
+	protected void createWorld (World world) {
+	}
+}
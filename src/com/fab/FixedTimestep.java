@@ -0,0 +1,173 @@
+package com.fab;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectIntMap;
+
+/** Advances a {@link World} in steps of constant size. The frame time is collected in an accumulator and consumed in steps of
+ * {@link #stepSize}, at most {@link #maxSteps} per frame. With {@link #interpolate} the body transforms before and after the
+ * last step of a frame are kept, so a renderer can draw the state {@link #getAlpha()} of the way between them instead of the
+ * state of the last step, the {@link BatchRenderer} does with {@link BatchRenderer#setInterpolation(FixedTimestep)}. Bodies
+ * created in the last step have no earlier transform and are drawn where they are. */
+public class FixedTimestep {
+	/** performs a single step of the given size **/
+	public interface Stepper {
+		public void step (float timeStep);
+	}
+
+	/** the size of a single step in seconds **/
+	public float stepSize = 1 / 60f;
+
+	/** the maximum number of steps per frame, time beyond that is dropped **/
+	public int maxSteps = 5;
+
+	/** whether the transforms around the last step are recorded for interpolation, two reads of every body per frame. Off by
+	 * default, the scenes turn it on when they draw with the {@link BatchRenderer} **/
+	public boolean interpolate = false;
+
+	private float accumulator;
+	private float alpha;
+	private int steps, frameSteps;
+
+	/** the bodies before and after the last step, the transforms of both, previous in the order of the bodies after the step **/
+	private final Array<Body> previousBodies = new Array<Body>(), bodies = new Array<Body>();
+	private float[] previous = new float[0], current = new float[0], aligned = new float[0];
+	/** the index of every body, filled by the first lookup that misses its hint **/
+	private final ObjectIntMap<Body> indices = new ObjectIntMap<Body>();
+	private boolean indexed;
+
+	/** Adds the frame time to the accumulator and calls the stepper for every full step that fits.
+	 * @return the number of steps taken */
+	public int update (World world, float deltaTime, Stepper stepper) {
+		accumulator += deltaTime;
+		steps = 0;
+		frameSteps = Math.min(maxSteps, (int)(accumulator / stepSize));
+		while (accumulator >= stepSize && steps < maxSteps) {
+			if (interpolate && (steps == maxSteps - 1 || accumulator < 2 * stepSize)) {
+				// only the last step of this frame is interpolated
+				world.getBodies(previousBodies);
+				previous = read(previousBodies, previous);
+			}
+			stepper.step(stepSize);
+			accumulator -= stepSize;
+			steps++;
+		}
+		// don't let a long hitch pile up into a spiral of catch up frames
+		if (steps == maxSteps && accumulator > stepSize) accumulator = stepSize;
+
+		if (interpolate && steps > 0) {
+			// the step may have created or destroyed bodies and with that changed the order of World.getBodies
+			world.getBodies(bodies);
+			current = read(bodies, current);
+			align();
+			indexed = false;
+		}
+		alpha = accumulator / stepSize;
+		if (alpha > 1) alpha = 1;
+		return steps;
+	}
+
+	private static float[] read (Array<Body> bodies, float[] transforms) {
+		if (transforms.length < bodies.size * 3) transforms = new float[bodies.size * 3];
+		for (int i = 0, j = 0; i < bodies.size; i++) {
+			Body body = bodies.get(i);
+			Vector2 position = body.getPosition();
+			transforms[j++] = position.x;
+			transforms[j++] = position.y;
+			// getAngle() is not wrapped, so it interpolates without jumps at +-PI
+			transforms[j++] = body.getAngle();
+		}
+		return transforms;
+	}
+
+	/** puts the previous transforms in the order of the bodies after the step, bodies created by it get their current one **/
+	private void align () {
+		if (aligned.length < current.length) aligned = new float[current.length];
+		boolean mapped = false;
+		for (int i = 0, j = 0; i < bodies.size; i++, j += 3) {
+			Body body = bodies.get(i);
+			int k = i;
+			if (i >= previousBodies.size || previousBodies.get(i) != body) {
+				if (!mapped) {
+					map(previousBodies);
+					mapped = true;
+				}
+				k = indices.get(body, -1);
+			}
+			float[] source = k >= 0 ? previous : current;
+			if (k < 0) k = i;
+			aligned[j] = source[k * 3];
+			aligned[j + 1] = source[k * 3 + 1];
+			aligned[j + 2] = source[k * 3 + 2];
+		}
+		float[] swap = previous;
+		previous = aligned;
+		aligned = swap;
+	}
+
+	private void map (Array<Body> bodies) {
+		indices.clear();
+		for (int i = 0; i < bodies.size; i++)
+			indices.put(bodies.get(i), i);
+	}
+
+	/** @param hint the index the body probably has, its index in World.getBodies for example, or -1
+	 * @return the index of the body for {@link #getX(int)} and friends, -1 if it was not there after the last step */
+	public int indexOf (Body body, int hint) {
+		if (hint >= 0 && hint < bodies.size && bodies.get(hint) == body) return hint;
+		if (!indexed) {
+			map(bodies);
+			indexed = true;
+		}
+		return indices.get(body, -1);
+	}
+
+	/** @return the number of steps the current frame takes, known before the first of them, those of the last frame after it */
+	public int getFrameSteps () {
+		return frameSteps;
+	}
+
+	/** @return the number of steps taken during the last frame */
+	public int getSteps () {
+		return steps;
+	}
+
+	/** @return the fraction of a step that is left in the accumulator, 0 means the last step, 1 the next one */
+	public float getAlpha () {
+		return alpha;
+	}
+
+	/** @return the bodies of the interpolation buffers, in the order used by {@link #getX(int)} and friends */
+	public Array<Body> getBodies () {
+		return bodies;
+	}
+
+	public float getX (int index) {
+		return lerp(index * 3);
+	}
+
+	public float getY (int index) {
+		return lerp(index * 3 + 1);
+	}
+
+	public float getAngle (int index) {
+		return lerp(index * 3 + 2);
+	}
+
+	private float lerp (int i) {
+		return previous[i] + (current[i] - previous[i]) * alpha;
+	}
+
+	/** drops the accumulated time and the recorded transforms **/
+	public void reset () {
+		accumulator = 0;
+		alpha = 0;
+		steps = frameSteps = 0;
+		previousBodies.clear();
+		bodies.clear();
+		indices.clear();
+		indexed = false;
+	}
+}
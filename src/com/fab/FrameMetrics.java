@@ -0,0 +1,105 @@
+package com.fab;
+
+import java.util.Arrays;
+
+/** Keeps the update, render and total frame times of the last {@link #WINDOW} frames in preallocated ring buffers and formats
+ * their percentiles for the HUD. Neither recording nor formatting allocates, the text is written into a reused StringBuilder
+ * and floats are formatted by hand, as String concatenation and StringBuilder.append(float) both create garbage. */
+public class FrameMetrics {
+	public static final int WINDOW = 128;
+
+	public static final int UPDATE = 0;
+	public static final int RENDER = 1;
+	public static final int FRAME = 2;
+	static final String[] NAMES = {"update", "render", "frame"};
+
+	private final float[][] samples = new float[3][WINDOW];
+	private final float[] sorted = new float[WINDOW];
+	private int index;
+	private int count;
+
+	/** p50, p95, p99 and max per series in seconds, updated by {@link #format(int)} **/
+	private final float[][] stats = new float[3][4];
+
+	private final StringBuilder text = new StringBuilder(256);
+
+	/** Records the times of one frame in seconds. */
+	public void add (float updateTime, float renderTime, float frameTime) {
+		samples[UPDATE][index] = updateTime;
+		samples[RENDER][index] = renderTime;
+		samples[FRAME][index] = frameTime;
+		index = (index + 1) % WINDOW;
+		if (count < WINDOW) count++;
+	}
+
+	/** @return the given percentile of a series over the window in seconds, 0 without samples */
+	public float percentile (int series, float percentile) {
+		if (count == 0) return 0;
+		sort(series);
+		return sorted[Math.min(count - 1, (int)(percentile * count))];
+	}
+
+	/** Copies a series into the scratch array and sorts it. An insertion sort, Arrays.sort may allocate merge buffers depending
+	 * on the JDK and the input, and the window is small. */
+	private void sort (int series) {
+		float[] sorted = this.sorted;
+		System.arraycopy(samples[series], 0, sorted, 0, count);
+		for (int i = 1; i < count; i++) {
+			float value = sorted[i];
+			int j = i - 1;
+			while (j >= 0 && sorted[j] > value) {
+				sorted[j + 1] = sorted[j];
+				j--;
+			}
+			sorted[j + 1] = value;
+		}
+	}
+
+	private void updateStats (int series) {
+		float[] stats = this.stats[series];
+		if (count == 0) {
+			Arrays.fill(stats, 0);
+			return;
+		}
+		sort(series);
+		stats[0] = sorted[(int)(0.50f * count)];
+		stats[1] = sorted[Math.min(count - 1, (int)(0.95f * count))];
+		stats[2] = sorted[Math.min(count - 1, (int)(0.99f * count))];
+		stats[3] = sorted[count - 1];
+	}
+
+	/** Formats fps and p50/p95/p99/max in milliseconds of every series, one line each. The returned builder is reused by the
+	 * next call, callers may append to it. */
+	public StringBuilder format (int fps) {
+		StringBuilder text = this.text;
+		text.setLength(0);
+		text.append("fps: ").append(fps).append("   p50/p95/p99/max ms");
+		for (int series = 0; series < 3; series++) {
+			updateStats(series);
+			text.append('\n').append(NAMES[series]).append(": ");
+			float[] stats = this.stats[series];
+			for (int i = 0; i < stats.length; i++) {
+				if (i > 0) text.append('/');
+				appendMillis(text, stats[i]);
+			}
+		}
+		return text;
+	}
+
+	/** @return the number of lines of the text, for placing it at the bottom of the screen */
+	static int lineCount (CharSequence text) {
+		int lines = 1;
+		for (int i = 0, n = text.length(); i < n; i++)
+			if (text.charAt(i) == '\n') lines++;
+		return lines;
+	}
+
+	/** appends seconds as milliseconds with two decimals **/
+	static void appendMillis (StringBuilder text, float seconds) {
+		int hundredths = Math.round(seconds * 100000);
+		text.append(hundredths / 100).append('.');
+		int fraction = hundredths % 100;
+		if (fraction < 10) text.append('0');
+		text.append(fraction);
+	}
+}
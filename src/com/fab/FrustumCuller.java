@@ -0,0 +1,73 @@
+package com.fab;
+
+import com.badlogic.gdx.graphics.Camera;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.Fixture;
+import com.badlogic.gdx.physics.box2d.QueryCallback;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectSet;
+
+/** Finds the bodies a camera can see. The world space AABB of the camera frustum is handed to World.QueryAABB, which walks the
+ * broadphase tree of Box2D and reports every fixture whose fattened AABB overlaps it, so the test is conservative: a body is
+ * listed if one of its fixtures may be visible. The visible fixtures and their bodies, each body once, are collected into
+ * lists that are reused from frame to frame. */
+public class FrustumCuller {
+	/** the world space bounds of the last query **/
+	public float minX, minY, maxX, maxY;
+
+	private final Array<Fixture> fixtures = new Array<Fixture>();
+	private final Array<Body> bodies = new Array<Body>();
+	private final ObjectSet<Body> seen = new ObjectSet<Body>();
+
+	private final QueryCallback callback = new QueryCallback() {
+		@Override
+		public boolean reportFixture (Fixture fixture) {
+			fixtures.add(fixture);
+			Body body = fixture.getBody();
+			if (seen.add(body)) bodies.add(body);
+			return true;
+		}
+	};
+
+	/** Collects the fixtures and bodies inside the frustum of the camera, which has to be updated.
+	 * @return the number of visible bodies */
+	public int cull (World world, Camera camera) {
+		// the corners of the frustum, this holds for rotated cameras as well
+		Vector3[] corners = camera.frustum.planePoints;
+		minX = minY = Float.MAX_VALUE;
+		maxX = maxY = -Float.MAX_VALUE;
+		for (Vector3 corner : corners) {
+			minX = Math.min(minX, corner.x);
+			minY = Math.min(minY, corner.y);
+			maxX = Math.max(maxX, corner.x);
+			maxY = Math.max(maxY, corner.y);
+		}
+		return cull(world, minX, minY, maxX, maxY);
+	}
+
+	/** Collects the fixtures and bodies overlapping the bounds.
+	 * @return the number of visible bodies */
+	public int cull (World world, float minX, float minY, float maxX, float maxY) {
+		this.minX = minX;
+		this.minY = minY;
+		this.maxX = maxX;
+		this.maxY = maxY;
+		fixtures.clear();
+		bodies.clear();
+		seen.clear();
+		world.QueryAABB(callback, minX, minY, maxX, maxY);
+		return bodies.size;
+	}
+
+	/** @return the fixtures of the last query, valid until the next one */
+	public Array<Fixture> getFixtures () {
+		return fixtures;
+	}
+
+	/** @return the bodies of the last query in the order their first fixture was reported, valid until the next one */
+	public Array<Body> getBodies () {
+		return bodies;
+	}
+}
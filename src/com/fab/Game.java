@@ -1,5 +1,7 @@
 package com.fab;
 
+import java.util.Random;
+
 import com.badlogic.gdx.ApplicationListener;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.GL10;
@@ -17,26 +19,96 @@ import com.badlogic.gdx.physics.box2d.EdgeShape;
 import com.badlogic.gdx.physics.box2d.FixtureDef;
 import com.badlogic.gdx.physics.box2d.World;
 import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
 import com.badlogic.gdx.utils.TimeUtils;
 
 /** Base class for all Box2D Testbed tests, all subclasses must implement the createWorld() method.
  * 
  * @author badlogicgames@gmail.com */
-public class Game implements ApplicationListener {
+public class Game implements ApplicationListener, PhysicsScene {
  
 	protected OrthographicCamera camera;
 	protected Box2DDebugRenderer renderer;
 
+	/** whether the bodies are drawn by the {@link BatchRenderer} instead of the debug renderer, which draws joints as well **/
+	protected boolean useBatchRenderer = true;
+	protected BatchRenderer batchRenderer;
+
+	/** whether the batch renderer only draws the bodies in view of the camera **/
+	protected boolean useCulling = true;
+	protected final FrustumCuller culler = new FrustumCuller();
+	/** the bodies drawn in the last frame, -1 without culling **/
+	private int visibleBodies = -1;
+
 	SpriteBatch batch;
 	BitmapFont font;
 
 	private World world;
 	private Body ground;
-	private Body ball;
+	private Array<Body> balls = new Array<Body>();
 	private Array<Body> players = new Array<Body>();
+	/** the team of every player, teams start in their own stripe of the field **/
+	private int[] teams = new int[0];
+
+	/** the size of a match, see {@link #Game(int, int, int)} **/
+	final int playerCount;
+	final int ballCount;
+	final int teamCount;
+
+	/** half width and half height of the field inside the walls **/
+	final float gw = 45;
+	final float gh = 35;
+
+	/** the walls around the field, the {@link BallPredictor}s mix them with the balls like Box2D does **/
+	static final float WALL_FRICTION = 0.5f;
+	static final float WALL_RESTITUTION = 0.98f;
+
+	/** the balls, refreshed every step, every player steers towards the nearest one **/
+	private SpatialGrid ballGrid;
+	/** the predicted path of every ball, computed once per step and shared by all players **/
+	private BallPredictor[] predictors = new BallPredictor[0];
 	
   String debugMsg = "";
 
+	/** the controller limits, fields so that matches can be run with different settings **/
+	float maxacc = 1000f;
+	float maxvel = 5f;
+	float maxangacc = 20f;
+
+	/** every game draws from its own generator, MathUtils.random is shared by all threads **/
+	final Random random = new Random();
+
+	/** whether the world is advanced in fixed steps or by the frame time, the steering runs once per step **/
+	protected boolean useFixedTimestep = true;
+	protected FixedTimestep timestep = new FixedTimestep();
+	protected AdaptiveIterations iterations = new AdaptiveIterations();
+	protected FrameMetrics metrics = new FrameMetrics();
+
+	/** records the session into this file for the {@link SessionReplayer} when set **/
+	protected String recordPath = System.getProperty("fab.record");
+	protected SessionRecorder recorder;
+
+	/** whether the world and the steering run on their own thread, the renderer then only draws the published snapshots **/
+	protected boolean useSimulationThread = false;
+	protected SimulationThread simulation;
+	protected SnapshotRenderer snapshotRenderer;
+
+	/** the original match, 10 players on a single team and one ball **/
+	public Game () {
+		this(10, 1, 1);
+	}
+
+	public Game (int playerCount, int ballCount, int teamCount) {
+		// the players steer towards the nearest ball, there has to be one
+		if (ballCount < 1) throw new GdxRuntimeException("A match needs at least one ball, not " + ballCount);
+		// the players are dealt to the teams in turn, each team gets a strip of the field
+		if (teamCount < 1) throw new GdxRuntimeException("A match needs at least one team, not " + teamCount);
+		if (playerCount < 0) throw new GdxRuntimeException("The player count can't be negative: " + playerCount);
+		this.playerCount = playerCount;
+		this.ballCount = ballCount;
+		this.teamCount = teamCount;
+	}
+
 	private static final float DEGTORAD = MathUtils.PI2 / 360;
   private static final float PI  = MathUtils.PI;
   private static final float PI2 = MathUtils.PI2;
@@ -44,21 +116,13 @@ public class Game implements ApplicationListener {
 
   private void applyTorque(Body body, Vector2 direction, float maxangacc) {
     float curAngle = body.getAngle();
-    float desAngle = direction.angle() / 360 * PI2; // MathUtils.atan2(delta.y, delta.x);
+    float desAngle = FastMath.atan2(direction.y, direction.x);
     /*
-    Note: There are two ways to get the angle of a Vector2:
-    - Vector2.angle() returns the angle in degrees 0-360 CCW => libgdx does not follow box2d's convention of rads only
-    - MathUtils.atan2(delta.y, delta.x) which is in rad
-    However:
-    - there is a slight numerical discrepancy between both approaches
-    - for both arguments negativ, the sign of the results seems to be reversed
-      (angle is always positive, while atan2 seems to be between -PI, +PI. 
+    Note: Vector2.angle() returns degrees 0-360 CCW and MathUtils.atan2 is a coarse lookup table, both do not follow
+    box2d's convention of rads only. FastMath.atan2 is in rad between -PI and +PI, and the rotation is wrapped without loops.
      */
     //player.setTransform(player.getPosition(), desAngle);
-    float totalRotation = desAngle - curAngle;
-    while ( totalRotation >  MathUtils.PI ) { totalRotation -= MathUtils.PI2; }
-    while ( totalRotation < -MathUtils.PI ) { totalRotation += MathUtils.PI2; }
-    
+    float totalRotation = FastMath.wrapAngle(desAngle - curAngle);
     
     float v = body.getAngularVelocity();
     float I = body.getInertia();
@@ -78,43 +142,127 @@ public class Game implements ApplicationListener {
     }    
   }
   
-  private void applyForce(Body body, Body ball, float maxacc) {
-   
-		Vector2 a = ball.getPosition().cpy();
-		Vector2 n = ball.getLinearVelocity().cpy().nor();
-		Vector2 p = body.getPosition();
-		Vector2 ap = a.sub(p);
-		Vector2 apn = n.scl(ap.dot(n));
-		Vector2 nearest = ap.sub(apn);
-		body.applyForceToCenter(nearest.clamp(maxacc, maxacc), true);
-    /*
-    Vector2 vel = body.getLinearVelocity();
-    if (vel.len() > maxvel) {
-      body.setLinearVelocity(vel.nor().scl(maxvel));
-    }
-    */
-  }  
-  
+	/** Moves the player towards a target at maxvel, the per Body version of SteeringBatch.computeForces. */
+	private void applyForce (Body body, Vector2 direction, float timeStep) {
+		float distance = direction.len();
+		float speed = Math.min(maxvel, distance / timeStep);
+		Vector2 velocity = body.getLinearVelocity();
+		// Box2D applies the damping after the forces, overshoot by it to end up at the desired velocity
+		float compensation = 1 + timeStep * body.getLinearDamping();
+		force.set(direction).scl(distance > 0 ? speed * compensation / distance : 0).sub(velocity).scl(1 / timeStep);
+		force.limit(maxacc).scl(body.getMass());
+		body.applyForceToCenter(force, true);
+	}
+
+	/** scratch vectors of the steering, it runs every step for every player and must not allocate **/
+	private final Vector2 delta = new Vector2();
+	private final Vector2 force = new Vector2();
+
+	/** whether the steering runs as batched passes over arrays or with one applyTorque and applyForce call per player **/
+	protected boolean batchedSteering = true;
+	private final SteeringBatch steering = new SteeringBatch();
+	/** finds the earliest point every player can reach its ball, set up for the player and ball radius in createWorld **/
+	final InterceptPlanner planner = new InterceptPlanner();
+	/** the time step of the running step, read by the decision phase **/
+	private float timeStep;
+
+	/** whether the decisions of the batched steering are computed on {@link #steeringThreads} threads or on the caller only **/
+	protected boolean parallelSteering = false;
+	protected int steeringThreads = Runtime.getRuntime().availableProcessors();
+	private ParallelFor steeringWorkers;
+	/** the time the last decision phase took in seconds **/
+	private float decideTime;
+
+	/** the decision phase, it only reads the state copied out of the World and writes the commands of its range of players **/
+	final ParallelFor.Task decide = new ParallelFor.Task() {
+		@Override
+		public void run (int from, int to) {
+			targetNearestBalls(from, to);
+			steering.computeTorques(maxangacc, from, to);
+			steering.computeForces(maxacc, maxvel, timeStep, from, to);
+		}
+	};
+
 	@Override
-	public void render () {
+	public void step (float timeStep) {
+		this.timeStep = timeStep;
+		planner.maxacc = maxacc;
+		planner.maxvel = maxvel;
+		updateBalls();
+		if (batchedSteering) {
+			// read the state of all players, decide on the commands without touching the World, then apply them
+			steering.read();
+			long startTime = TimeUtils.nanoTime();
+			if (parallelSteering) {
+				if (steeringWorkers == null) steeringWorkers = new ParallelFor(steeringThreads);
+				steeringWorkers.run(decide, steering.count);
+			} else {
+				decide.run(0, steering.count);
+			}
+			decideTime = (TimeUtils.nanoTime() - startTime) / 1000000000.0f;
+			steering.apply();
+		} else {
+			steerEach(timeStep);
+		}
 		
-		float maxacc = 1000f;
-		float maxvel = 5f;
-		float maxangacc = 20f;	
-		Vector2 ballPosCur = ball.getPosition().cpy();
-		Vector2 ballPosNxt = ball.getPosition().cpy().add(ball.getLinearVelocity().cpy().scl(1f/60f));
-		Vector2 ballPosSec = ball.getPosition().cpy().add(ball.getLinearVelocity().cpy().scl(1f));
-		for (Body player: players) {
-			Vector2 playerPos = player.getPosition();
-			Vector2 delta = ballPosCur.cpy().sub(playerPos);
+		iterations.step(world, timeStep, timestep.getFrameSteps());
+	}
+
+	private void updateBalls () {
+		for (int i = 0; i < balls.size; i++) {
+			Body ball = balls.get(i);
+			Vector2 position = ball.getPosition();
+			Vector2 velocity = ball.getLinearVelocity();
+			ballGrid.update(i, position.x, position.y);
+			predictors[i].update(position.x, position.y, velocity.x, velocity.y, ball.getAngularVelocity());
+		}
+	}
+
+	/** The player aims at the earliest point it can reach the nearest ball, at the end of the predicted path if there is none. */
+	private void targetNearestBalls (int from, int to) {
+		SpatialGrid ballGrid = this.ballGrid;
+		InterceptPlanner planner = this.planner;
+		float[] x = steering.x, y = steering.y;
+		float[] targetX = steering.targetX, targetY = steering.targetY;
+		for (int i = from; i < to; i++) {
+			BallPredictor predictor = predictors[ballGrid.nearest(x[i], y[i])];
+			float time = planner.intercept(predictor, x[i], y[i]);
+			if (time < 0) time = predictor.horizon;
+			int segment = predictor.find(time);
+			targetX[i] = predictor.getX(segment, time);
+			targetY[i] = predictor.getY(segment, time);
+		}
+	}
+
+	private void steerEach (float timeStep) {
+		for (int i = 0; i < players.size; i++) {
+			Body player = players.get(i);
+			Vector2 position = player.getPosition();
+			BallPredictor predictor = predictors[ballGrid.nearest(position.x, position.y)];
+			float time = planner.intercept(predictor, position.x, position.y);
+			if (time < 0) time = predictor.horizon;
+			int segment = predictor.find(time);
+			delta.set(predictor.getX(segment, time), predictor.getY(segment, time)).sub(position);
 
 			applyTorque(player, delta, maxangacc);
-      //applyForce(player, ball, maxacc);
+			applyForce(player, delta, timeStep);
 		}
-		
+	}
+
+	@Override
+	public void render () {
+		if (simulation != null) {
+			renderSnapshot();
+			return;
+		}
+
 		// update the world with a fixed time step 
 		long startTime = TimeUtils.nanoTime();
-		world.step(Gdx.app.getGraphics().getDeltaTime(), 3, 3);
+		FixedTimestep.Stepper stepper = recorder != null ? recorder : this;
+		if (useFixedTimestep)
+			timestep.update(world, Gdx.graphics.getDeltaTime(), stepper);
+		else
+			stepper.step(Gdx.graphics.getDeltaTime());
 		float updateTime = (TimeUtils.nanoTime() - startTime) / 1000000000.0f;
 
 		startTime = TimeUtils.nanoTime();
@@ -122,12 +270,52 @@ public class Game implements ApplicationListener {
 		Gdx.gl.glClear(GL10.GL_COLOR_BUFFER_BIT);
 		camera.update();
 
-		// render the world using the debug renderer
-		renderer.render(world, camera.combined);
+		// render the world using the batch or the debug renderer
+		visibleBodies = -1;
+		if (!useBatchRenderer) {
+			renderer.render(world, camera.combined);
+		} else if (useCulling) {
+			visibleBodies = culler.cull(world, camera);
+			batchRenderer.render(world, culler.getBodies(), camera.combined);
+		} else {
+			batchRenderer.render(world, camera.combined);
+		}
 		float renderTime = (TimeUtils.nanoTime() - startTime) / 1000000000.0f;
 
+		drawHud(updateTime, renderTime);
+	}
+
+	private void renderSnapshot () {
+		TransformSnapshot snapshot = simulation.acquire();
+
+		long startTime = TimeUtils.nanoTime();
+		Gdx.gl.glClear(GL10.GL_COLOR_BUFFER_BIT);
+		camera.update();
+		snapshotRenderer.render(snapshot, camera.combined);
+		float renderTime = (TimeUtils.nanoTime() - startTime) / 1000000000.0f;
+
+		drawHud(snapshot.stepTime, renderTime);
+	}
+
+	private void drawHud (float updateTime, float renderTime) {
+		metrics.add(updateTime, renderTime, Gdx.graphics.getDeltaTime());
+		StringBuilder text = metrics.format(Gdx.graphics.getFramesPerSecond());
+		if (batchedSteering) {
+			text.append("\nsteering: ");
+			if (parallelSteering)
+				text.append("parallel x").append(steeringThreads);
+			else
+				text.append("serial");
+			text.append(' ');
+			FrameMetrics.appendMillis(text, decideTime);
+			text.append(" ms");
+		}
+		if (visibleBodies >= 0) text.append("\nvisible: ").append(visibleBodies).append('/').append(world.getBodyCount());
+		text.append('\n').append(debugMsg);
+		int lines = FrameMetrics.lineCount(text);
+
 		batch.begin();
-		font.draw(batch, "fps:" + Gdx.graphics.getFramesPerSecond() + ", update: " + updateTime + ", render: " + renderTime + " " + debugMsg, 0, 20);
+		font.drawMultiLine(batch, text, 0, lines * font.getLineHeight() + 5);
 		batch.end();
 	}
 
@@ -136,20 +324,88 @@ public class Game implements ApplicationListener {
 
 		// create the debug renderer
 		renderer = new Box2DDebugRenderer();
+		batchRenderer = new BatchRenderer();
+		// the batch renderer draws the bodies between the last two fixed steps, the debug renderer can only draw the last
+		if (useBatchRenderer && useFixedTimestep) {
+			timestep.interpolate = true;
+			batchRenderer.setInterpolation(timestep);
+		}
+
+		if (recordPath != null) {
+			long seed = TimeUtils.nanoTime();
+			makeDeterministic(seed);
+			recorder = new SessionRecorder(this, null, seed, Gdx.graphics.getWidth(), Gdx.graphics.getHeight(), recordPath);
+		}
+		createPhysics();
+
+		batch = new SpriteBatch();
+		font = new BitmapFont(Gdx.files.internal("data/arial-15.fnt"), false);
 
+		if (useSimulationThread) {
+			snapshotRenderer = new SnapshotRenderer();
+			simulation = new SimulationThread(recorder != null ? recorder : this, timestep.stepSize, null);
+			simulation.start();
+		}
+	}
+
+	@Override
+	public void createPhysics () {
 		// create the world
 		world = new World(new Vector2(0, 0), true);
 		createWorld(world);
+	}
 
-		batch = new SpriteBatch();
-		font = new BitmapFont(Gdx.files.internal("data/arial-15.fnt"), false);
+	@Override
+	public String[] getParameters () {
+		return new String[] {String.valueOf(playerCount), String.valueOf(ballCount), String.valueOf(teamCount)};
+	}
+
+	@Override
+	public World getWorld () {
+		return world;
+	}
+
+	@Override
+	public void makeDeterministic (long seed) {
+		random.setSeed(seed);
+		// adaptive iterations follow the measured step times, use the fixed counts
+		iterations.adaptive = false;
+	}
+
+	@Override
+	public AdaptiveIterations getIterations () {
+		return iterations;
+	}
+
+	/** @return the first ball, the only one of the original match */
+	Body getBall () {
+		return balls.first();
+	}
+
+	Array<Body> getBalls () {
+		return balls;
+	}
+
+	Array<Body> getPlayers () {
+		return players;
+	}
+
+	int getTeam (int player) {
+		return teams[player];
 	}
 	
+  private float random (float range) {
+  	return random.nextFloat() * range;
+  }
+
+  private float random (float start, float end) {
+  	return start + random.nextFloat() * (end - start);
+  }
+
   void createWorld (World world) {
 		
-		float gw = 45;
-		float gh = 35;
-		float radiusPlayers = 1.0f;
+		// shrink the players of large matches so they cover at most a fifth of the field
+		float radiusPlayers = Math.min(1.0f, (float)Math.sqrt(0.2f * 4 * gw * gh / (playerCount * PI)));
 		float radiusBall = 0.3f;
 		float speedPlayers = 1.0f;
 		float speedBall = 10.0f;
@@ -164,8 +420,8 @@ public class Game implements ApplicationListener {
 			FixtureDef fd = new FixtureDef();
 			fd.shape = shape;
 			fd.density = 0;
-			fd.friction = 0.5f;
-			fd.restitution = 0.98f;
+			fd.friction = WALL_FRICTION;
+			fd.restitution = WALL_RESTITUTION;
 			
 			shape.set(new Vector2(-gw, -gh), new Vector2(-gw,  gh));
 			ground.createFixture(fd);
@@ -190,31 +446,33 @@ public class Game implements ApplicationListener {
 			fd.friction = 0.0f;
 			fd.restitution = 1.0f;
 
-			for (int i = 0; i < 10; i++) {
-				BodyDef bd = new BodyDef();
-				bd.type = BodyType.DynamicBody;
-				bd.position.set(MathUtils.random(-gw,+gw), MathUtils.random(-gh,+gh));
-				bd.linearVelocity.set(MathUtils.random(speedPlayers), MathUtils.random(speedPlayers));
-        bd.angle = MathUtils.PI2 * MathUtils.random(1.0f);
-				bd.angularVelocity = 0; // MathUtils.random(1.0f);
+			if (teams.length < playerCount) teams = new int[playerCount];
+			BodyDef bd = new BodyDef();
+			bd.type = BodyType.DynamicBody;
+			float teamWidth = 2 * gw / teamCount;
+			for (int i = 0; i < playerCount; i++) {
+				int team = i % teamCount;
+				float left = -gw + team * teamWidth;
+				bd.position.set(random(left, left + teamWidth), random(-gh,+gh));
+				bd.linearVelocity.set(random(speedPlayers), random(speedPlayers));
+        bd.angle = MathUtils.PI2 * random(1.0f);
+				bd.angularVelocity = 0; // random(1.0f);
 				bd.linearDamping = 35.0f;
 				
 				Body body = world.createBody(bd);
 				body.createFixture(fd);
 				players.add(body);
+				teams[i] = team;
 			}
+			steering.setBodies(players);
 			shape.dispose();
 	  }
 			
 		{
-			// create ball
+			// create balls
 			BodyDef bd = new BodyDef();
 			bd.type = BodyType.DynamicBody;
-			bd.position.set(MathUtils.random(-gw,+gw), MathUtils.random(-gh,+gh));
-			bd.linearVelocity.set(MathUtils.random(speedBall), MathUtils.random(speedBall));
-			bd.angle = MathUtils.PI2 * MathUtils.random(1.0f);
-			bd.angularVelocity = MathUtils.random(1.0f);
-			
+
 			CircleShape shape = new CircleShape();
 			shape.setRadius(radiusBall);
 
@@ -224,19 +482,64 @@ public class Game implements ApplicationListener {
 			fd.friction = 10.0f;
 			fd.restitution = 1.0f;
 
-			ball = world.createBody(bd);
-			ball.createFixture(fd);
+			// mixed with the walls like Box2D does
+			float restitution = Math.max(fd.restitution, WALL_RESTITUTION);
+			float friction = (float)Math.sqrt(fd.friction * WALL_FRICTION);
+			planner.set(maxacc, maxvel, radiusPlayers + radiusBall);
+			if (predictors.length != ballCount) predictors = new BallPredictor[ballCount];
+			for (int i = 0; i < ballCount; i++) {
+				predictors[i] = new BallPredictor(-gw, -gh, gw, gh, radiusBall, restitution, friction);
+				bd.position.set(random(-gw,+gw), random(-gh,+gh));
+				bd.linearVelocity.set(random(speedBall), random(speedBall));
+				bd.angle = MathUtils.PI2 * random(1.0f);
+				bd.angularVelocity = random(1.0f);
+
+				Body ball = world.createBody(bd);
+				ball.createFixture(fd);
+				balls.add(ball);
+			}
 			shape.dispose();
+
+			// about one ball per cell, a query then looks at the few cells around the player
+			float cellSize = (float)Math.sqrt(4 * gw * gh / ballCount);
+			ballGrid = new SpatialGrid(-gw, -gh, gw, gh, cellSize);
+			ballGrid.setCount(ballCount);
+			updateBalls();
 	  }
 	}
 	
 	@Override
 	public void dispose () {
+		if (simulation != null) {
+			simulation.shutdown();
+			simulation = null;
+			snapshotRenderer.dispose();
+			snapshotRenderer = null;
+		}
+		if (recorder != null) {
+			recorder.close();
+			recorder = null;
+		}
 		renderer.dispose();
+		renderer = null;
+		batchRenderer.dispose();
+		batchRenderer = null;
+
+		disposePhysics();
+	}
+
+	@Override
+	public void disposePhysics () {
 		world.dispose();
 
-		renderer = null;
 		world = null;
+		players.clear();
+		balls.clear();
+		timestep.reset();
+		if (steeringWorkers != null) {
+			steeringWorkers.shutdown();
+			steeringWorkers = null;
+		}
 	}
 
 	public void pause () {
@@ -0,0 +1,175 @@
+package com.fab;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.BodyDef.BodyType;
+import com.badlogic.gdx.physics.box2d.Contact;
+import com.badlogic.gdx.physics.box2d.ContactImpulse;
+import com.badlogic.gdx.physics.box2d.ContactListener;
+import com.badlogic.gdx.physics.box2d.Manifold;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxNativesLoader;
+import com.badlogic.gdx.utils.TimeUtils;
+
+/** Runs many independent {@link Game} matches without a window on a fixed thread pool. Every match is one task that owns its
+ * own Game and World from creation to disposal, so the tasks share no state and the throughput scales with the number of
+ * cores. The per match statistics are collected from the futures and aggregated on the calling thread.
+ *
+ * Usage: GamePool [matches] [threads] [steps] */
+public class GamePool {
+	/** the statistics of a single match **/
+	public static class MatchStats {
+		public long seed;
+		public int steps;
+		/** number of contacts between a player and the ball **/
+		public int ballTouches;
+		/** distance between players and ball, averaged over all players and steps **/
+		public double meanBallDistance;
+		/** wall clock time of the match in seconds **/
+		public double time;
+	}
+
+	/** the statistics of all matches of a run **/
+	public static class Summary {
+		public int matches;
+		public long steps;
+		public long ballTouches;
+		public double meanBallDistance;
+		public double time;
+		public final Array<MatchStats> results = new Array<MatchStats>();
+
+		void add (MatchStats stats) {
+			results.add(stats);
+			matches++;
+			steps += stats.steps;
+			ballTouches += stats.ballTouches;
+			meanBallDistance += (stats.meanBallDistance - meanBallDistance) / matches;
+		}
+
+		@Override
+		public String toString () {
+			return String.format(Locale.US, "matches: %d, steps: %d, touches/match: %.2f, mean ball distance: %.3f, time: %.3f s, "
+				+ "matches/s: %.2f, steps/s: %.0f", matches, steps, ballTouches / (double)matches, meanBallDistance, time, matches / time,
+				steps / time);
+		}
+	}
+
+	private final ExecutorService executor;
+	private final int threads;
+
+	public GamePool (int threads) {
+		this.threads = threads;
+		GdxNativesLoader.load();
+		executor = Executors.newFixedThreadPool(threads);
+	}
+
+	public int getThreads () {
+		return threads;
+	}
+
+	/** Plays the given number of matches, match i is seeded with seed + i. Blocks until all matches are done. */
+	public Summary run (int matches, final int steps, final float timeStep, long seed) throws InterruptedException {
+		long startTime = TimeUtils.nanoTime();
+		List<Future<MatchStats>> futures = new ArrayList<Future<MatchStats>>(matches);
+		for (int i = 0; i < matches; i++) {
+			final long matchSeed = seed + i;
+			futures.add(executor.submit(new Callable<MatchStats>() {
+				@Override
+				public MatchStats call () {
+					return play(matchSeed, steps, timeStep);
+				}
+			}));
+		}
+
+		Summary summary = new Summary();
+		for (Future<MatchStats> future : futures) {
+			try {
+				summary.add(future.get());
+			} catch (ExecutionException e) {
+				throw new RuntimeException("Match failed", e.getCause());
+			}
+		}
+		summary.time = (TimeUtils.nanoTime() - startTime) / 1000000000.0;
+		return summary;
+	}
+
+	/** Plays one match on the calling thread. */
+	public static MatchStats play (long seed, int steps, float timeStep) {
+		long startTime = TimeUtils.nanoTime();
+		final Game game = new Game();
+		game.makeDeterministic(seed);
+		game.createPhysics();
+
+		final MatchStats stats = new MatchStats();
+		stats.seed = seed;
+		World world = game.getWorld();
+		world.setContactListener(new ContactListener() {
+			@Override
+			public void beginContact (Contact contact) {
+				Body ball = game.getBall();
+				Body bodyA = contact.getFixtureA().getBody();
+				Body bodyB = contact.getFixtureB().getBody();
+				Body other = bodyA == ball ? bodyB : bodyB == ball ? bodyA : null;
+				// the walls are the only non dynamic body
+				if (other != null && other.getType() == BodyType.DynamicBody) stats.ballTouches++;
+			}
+
+			@Override
+			public void endContact (Contact contact) {
+			}
+
+			@Override
+			public void preSolve (Contact contact, Manifold oldManifold) {
+			}
+
+			@Override
+			public void postSolve (Contact contact, ContactImpulse impulse) {
+			}
+		});
+
+		Array<Body> players = game.getPlayers();
+		double distanceSum = 0;
+		for (int i = 0; i < steps; i++) {
+			game.step(timeStep);
+
+			Vector2 ballPos = game.getBall().getPosition();
+			float ballX = ballPos.x, ballY = ballPos.y;
+			for (int j = 0; j < players.size; j++) {
+				Vector2 playerPos = players.get(j).getPosition();
+				float dx = playerPos.x - ballX, dy = playerPos.y - ballY;
+				distanceSum += Math.sqrt(dx * dx + dy * dy);
+			}
+		}
+		stats.steps = steps;
+		stats.meanBallDistance = distanceSum / ((double)steps * players.size);
+
+		game.disposePhysics();
+		stats.time = (TimeUtils.nanoTime() - startTime) / 1000000000.0;
+		return stats;
+	}
+
+	public void dispose () {
+		executor.shutdown();
+	}
+
+	public static void main (String[] args) throws InterruptedException {
+		int matches = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		int steps = args.length > 2 ? Integer.parseInt(args[2]) : 60 * 60;
+
+		GamePool pool = new GamePool(threads);
+		Summary summary = pool.run(matches, steps, 1 / 60f, 0);
+		pool.dispose();
+		System.out.println("threads: " + threads + ", " + summary);
+	}
+}
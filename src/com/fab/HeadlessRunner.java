@@ -0,0 +1,163 @@
+package com.fab;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Locale;
+
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.GdxNativesLoader;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.TimeUtils;
+
+/** Builds every scene of the {@link SceneRegistry} without SpriteBatch, BitmapFont or Box2DDebugRenderer, steps it a fixed
+ * number of times at a fixed time step and writes the throughput and the step time percentiles as one CSV. Needs no window or
+ * GL context, only the gdx natives. {@link DataScene} reads its file relative to the working directory or to its assets folder.
+ * Every scene is made deterministic and steps with {@link #VELOCITY_ITERATIONS} and {@link #POSITION_ITERATIONS} solver
+ * iterations, which every row records, so that two runs measure the same work. A scene that fails is reported on stderr and
+ * written with the status failed and empty timings, the others still run.
+ *
+ * Usage: HeadlessRunner [steps] [output.csv] [scene...] */
+public class HeadlessRunner {
+	public static final String CSV_HEADER = "scene,steps,dt,steps_per_sec,mean_step_ms,p50_step_ms,p95_step_ms,p99_step_ms,"
+		+ "max_step_ms,bodies,contacts,velocity_iterations,position_iterations,status";
+
+	/** the fixed solver iterations of every step, the ones the Box2D manual suggests **/
+	public static final int VELOCITY_ITERATIONS = 8;
+	public static final int POSITION_ITERATIONS = 3;
+
+	/** the timings of one run **/
+	public static class Result {
+		public String scene;
+		public int steps;
+		public float timeStep;
+		public double stepsPerSecond;
+		public double meanStepMillis;
+		public double p50StepMillis;
+		public double p95StepMillis;
+		public double p99StepMillis;
+		public double maxStepMillis;
+		public int bodyCount;
+		public int contactCount;
+		/** the iterations of the last step **/
+		public int velocityIterations;
+		public int positionIterations;
+		/** whether the scene threw instead of running, the row then has no timings **/
+		public boolean failed;
+
+		public String toCsv () {
+			if (failed) return scene + "," + steps + "," + timeStep + ",,,,,,,,,,,failed";
+			return scene + "," + steps + "," + timeStep + "," + format(stepsPerSecond) + "," + format(meanStepMillis) + ","
+				+ format(p50StepMillis) + "," + format(p95StepMillis) + "," + format(p99StepMillis) + "," + format(maxStepMillis) + ","
+				+ bodyCount + "," + contactCount + "," + velocityIterations + "," + positionIterations + ",ok";
+		}
+
+		/** sets the sizes and the iterations from the scene after its last step **/
+		void setScene (PhysicsScene scene) {
+			World world = scene.getWorld();
+			bodyCount = world.getBodyCount();
+			contactCount = world.getContactCount();
+			velocityIterations = scene.getIterations().getVelocityIterations();
+			positionIterations = scene.getIterations().getPositionIterations();
+		}
+
+		/** sets the throughput and the percentiles from the sorted step times in nanoseconds **/
+		void setTimes (long[] times) {
+			int steps = times.length;
+			long total = 0;
+			for (long time : times)
+				total += time;
+			this.steps = steps;
+			stepsPerSecond = total == 0 ? 0 : steps / (total / 1000000000.0);
+			meanStepMillis = steps == 0 ? 0 : total / (double)steps / 1000000.0;
+			p50StepMillis = percentile(times, 0.5);
+			p95StepMillis = percentile(times, 0.95);
+			p99StepMillis = percentile(times, 0.99);
+			maxStepMillis = steps == 0 ? 0 : times[steps - 1] / 1000000.0;
+		}
+
+		static double percentile (long[] times, double fraction) {
+			int steps = times.length;
+			return steps == 0 ? 0 : times[Math.min(steps - 1, (int)(steps * fraction))] / 1000000.0;
+		}
+
+		static String format (double value) {
+			// fixed locale, a decimal comma would break the columns
+			return String.format(Locale.US, "%.4f", value);
+		}
+	}
+
+	/** Steps an already created scene and measures every single step. */
+	public static Result run (String name, PhysicsScene scene, int steps, float timeStep) {
+		long[] times = new long[steps];
+		for (int i = 0; i < steps; i++) {
+			long startTime = TimeUtils.nanoTime();
+			scene.step(timeStep);
+			times[i] = TimeUtils.nanoTime() - startTime;
+		}
+		Arrays.sort(times);
+
+		Result result = new Result();
+		result.scene = name;
+		result.timeStep = timeStep;
+		result.setTimes(times);
+		result.setScene(scene);
+		return result;
+	}
+
+	/** Creates the scene of the given class with the seed 1 and the fixed iterations, runs it and disposes it again. */
+	public static Result run (Class<? extends PhysicsScene> type, int steps, float timeStep) {
+		PhysicsScene scene = SceneRegistry.create(type);
+		scene.makeDeterministic(1);
+		AdaptiveIterations iterations = scene.getIterations();
+		iterations.adaptive = false;
+		iterations.fixedVelocityIterations = VELOCITY_ITERATIONS;
+		iterations.fixedPositionIterations = POSITION_ITERATIONS;
+		scene.createPhysics();
+		try {
+			return run(type.getSimpleName(), scene, steps, timeStep);
+		} finally {
+			scene.disposePhysics();
+		}
+	}
+
+	/** Runs the scenes one after the other and writes a line per scene as soon as it is done.
+	 * @param names the scenes, all of the {@link SceneRegistry} if empty */
+	public static void runAll (Writer out, int steps, float timeStep, String... names) throws IOException {
+		if (names.length == 0) names = SceneRegistry.getNames();
+		// fail before the first run instead of after the others
+		for (String name : names)
+			if (SceneRegistry.find(name) == null)
+				throw new GdxRuntimeException("Unknown scene " + name + ", the scenes are " + SceneRegistry.list());
+
+		GdxNativesLoader.load();
+		out.write(CSV_HEADER + "\n");
+		for (String name : names) {
+			Result result;
+			try {
+				result = run(SceneRegistry.find(name), steps, timeStep);
+			} catch (RuntimeException e) {
+				System.err.println("Scene " + name + " failed:");
+				e.printStackTrace();
+				result = new Result();
+				result.scene = SceneRegistry.find(name).getSimpleName();
+				result.steps = steps;
+				result.timeStep = timeStep;
+				result.failed = true;
+			}
+			out.write(result.toCsv() + "\n");
+			out.flush();
+		}
+	}
+
+	public static void main (String[] args) throws IOException {
+		int steps = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+		Writer out = args.length > 1 ? new FileWriter(args[1]) : new PrintWriter(System.out);
+		String[] names = args.length > 2 ? Arrays.copyOfRange(args, 2, args.length) : new String[0];
+
+		runAll(out, steps, 1 / 60f, names);
+		if (args.length > 1) out.close();
+	}
+}
@@ -0,0 +1,153 @@
+package com.fab;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.InputAdapter;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.BodyDef.BodyType;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Timer;
+
+/** Stops the render loop while nothing moves. After a frame in which no dynamic or kinematic body of the world is awake the
+ * scene goes idle: the world is not stepped any more and continuous rendering is turned off, so the backend only polls for
+ * input. The LWJGL backend then sleeps in Display.sync at the background rate instead of drawing, an idle scene costs close to
+ * no CPU. Static bodies don't count, they never move. Box2D puts them to sleep together with an island touching them, one that
+ * touches nothing stays awake.
+ *
+ * Any input wakes the scene, put this first into an InputMultiplexer, it never handles the events itself. Scenes that change the
+ * world on their own after a while schedule a wake up with {@link #wakeAfter(float)}. The first frame after waking reports at
+ * most {@link #maxResumeTime} as frame time, the time spent idle is not simulated. Scenes count their timers in steps, which
+ * don't advance while idle: after a scheduled wake {@link #isScheduledWake()} tells the scene to move its timers on by the
+ * time it slept, and the scene keeps stepping until it calls {@link #release()} for the event it was woken for. */
+public class IdleRendering extends InputAdapter {
+	/** whether the scene may go idle at all **/
+	public boolean enabled = true;
+
+	/** the frame time of the first frame after waking, one step **/
+	public float maxResumeTime = 1 / 60f;
+
+	private boolean idle, resumed, waiting, scheduled;
+	private final Array<Body> bodies = new Array<Body>();
+
+	private final Timer.Task wakeTask = new Timer.Task() {
+		@Override
+		public void run () {
+			wake();
+			waiting = scheduled = true;
+		}
+	};
+
+	/** @return the time to advance the world by in this frame, 0 while idle */
+	public float getDeltaTime (float deltaTime) {
+		if (idle) return 0;
+		if (resumed) {
+			resumed = false;
+			return Math.min(deltaTime, maxResumeTime);
+		}
+		return deltaTime;
+	}
+
+	/** Goes idle if no body of the world moves, call after the frame is drawn.
+	 * @return whether the scene is idle */
+	public boolean update (World world) {
+		if (!enabled || idle || waiting || Gdx.graphics == null) return idle;
+		if (isMoving(world)) return false;
+		idle = true;
+		Gdx.graphics.setContinuousRendering(false);
+		return true;
+	}
+
+	/** @return whether a dynamic or kinematic body is awake, the scan stops at the first one */
+	public boolean isMoving (World world) {
+		world.getBodies(bodies);
+		boolean moving = false;
+		for (int i = 0; i < bodies.size && !moving; i++) {
+			Body body = bodies.get(i);
+			moving = body.isAwake() && body.getType() != BodyType.StaticBody;
+		}
+		bodies.clear();
+		return moving;
+	}
+
+	/** renders and steps again from the next frame on **/
+	public void wake () {
+		if (!idle) return;
+		idle = false;
+		resumed = true;
+		wakeTask.cancel();
+		Gdx.graphics.setContinuousRendering(true);
+		Gdx.graphics.requestRendering();
+	}
+
+	/** Wakes the scene after the delay, the Timer posts the wake up to the render thread. A later call replaces an earlier one.
+	 * The scene doesn't go idle again before it calls {@link #release()}. */
+	public void wakeAfter (float delaySeconds) {
+		wakeTask.cancel();
+		Timer.schedule(wakeTask, delaySeconds);
+	}
+
+	/** lets the scene go idle again, call when the event of a scheduled wake happened **/
+	public void release () {
+		waiting = false;
+	}
+
+	/** @return whether the scene was woken by {@link #wakeAfter(float)} since the last call, true once per wake **/
+	public boolean isScheduledWake () {
+		boolean wasScheduled = scheduled;
+		scheduled = false;
+		return wasScheduled;
+	}
+
+	public boolean isIdle () {
+		return idle;
+	}
+
+	/** renders continuously again, for leaving the scene **/
+	public void dispose () {
+		wakeTask.cancel();
+		if (idle && Gdx.graphics != null) Gdx.graphics.setContinuousRendering(true);
+		idle = resumed = waiting = scheduled = false;
+	}
+
+	@Override
+	public boolean keyDown (int keycode) {
+		wake();
+		return false;
+	}
+
+	@Override
+	public boolean keyUp (int keycode) {
+		wake();
+		return false;
+	}
+
+	@Override
+	public boolean keyTyped (char character) {
+		wake();
+		return false;
+	}
+
+	@Override
+	public boolean touchDown (int x, int y, int pointer, int button) {
+		wake();
+		return false;
+	}
+
+	@Override
+	public boolean touchUp (int x, int y, int pointer, int button) {
+		wake();
+		return false;
+	}
+
+	@Override
+	public boolean touchDragged (int x, int y, int pointer) {
+		wake();
+		return false;
+	}
+
+	@Override
+	public boolean scrolled (int amount) {
+		wake();
+		return false;
+	}
+}
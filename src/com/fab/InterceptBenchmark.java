@@ -0,0 +1,57 @@
+package com.fab;
+
+import java.io.IOException;
+import java.util.Locale;
+
+import com.badlogic.gdx.utils.GdxNativesLoader;
+
+/** Measures the decision phase of the batched {@link Game} steering with {@link MicroBenchmark}: nearest ball, intercept,
+ * torque and force of every player, on the arrays read from a settled match. One operation decides for all players, the
+ * cost per player is printed in the last column and should not grow with the number of players.
+ *
+ * Usage: InterceptBenchmark [players|all] */
+public class InterceptBenchmark extends MicroBenchmark {
+	public static final String[] PLAYERS = {"100", "1000", "10000"};
+	static final int BALLS = 16;
+
+	Game game;
+	int players;
+
+	@Override
+	protected void setUp (String param) {
+		GdxNativesLoader.load();
+		players = Integer.parseInt(param);
+		game = new Game(players, BALLS, 4);
+		game.random.setSeed(0);
+		game.createPhysics();
+		// spread the players and balls, and fill the steering arrays
+		for (int i = 0; i < 60; i++)
+			game.step(SceneBenchmark.TIME_STEP);
+	}
+
+	@Override
+	protected long operation () {
+		game.decide.run(0, players);
+		return players;
+	}
+
+	@Override
+	protected void tearDown () {
+		game.disposePhysics();
+	}
+
+	public static void main (String[] args) throws IOException, InterruptedException {
+		if (args.length == 3 && args[0].equals("-fork")) {
+			forked(new InterceptBenchmark(), args[2]);
+			return;
+		}
+
+		String[] players = args.length > 0 && !args[0].equals("all") ? new String[] {args[0]} : PLAYERS;
+
+		System.out.println(Score.HEADER + "  per player");
+		for (String count : players) {
+			Score score = new InterceptBenchmark().run(InterceptBenchmark.class, "decide", count);
+			System.out.println(score + String.format(Locale.US, "  %8.1f ns", score.mean / Integer.parseInt(count)));
+		}
+	}
+}
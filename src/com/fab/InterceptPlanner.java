@@ -0,0 +1,67 @@
+package com.fab;
+
+/** Finds the earliest time a player can reach a ball moving along the path of a {@link BallPredictor}.
+ *
+ * Starting from rest at full acceleration a player covers maxvel t - maxvel^2 / (2 maxacc) once it reached maxvel, and never
+ * less before. The ball moves linearly on every segment of its path, so touching it means |d + v t| = maxvel t - c with the
+ * offset d of the ball from the player, its velocity v and c = maxvel^2 / (2 maxacc) - reach. Squaring gives a quadratic in t
+ * whose smallest root inside the segment is the intercept, the segments are tried in order. The current velocity of the
+ * player is ignored, with the acceleration of Game it changes within a few milliseconds. The result is exact once the player
+ * runs at maxvel and at most maxvel / (2 maxacc) late before, 2.5 ms for Game.
+ *
+ * The planner keeps no state besides its settings, one instance can be used by several threads. */
+public class InterceptPlanner {
+	public float maxacc = 1000;
+	public float maxvel = 5;
+	/** the distance between the centers at which the player touches the ball **/
+	public float reach;
+
+	public void set (float maxacc, float maxvel, float reach) {
+		this.maxacc = maxacc;
+		this.maxvel = maxvel;
+		this.reach = reach;
+	}
+
+	/** @return the earliest time in seconds the player at (x, y) can touch the ball, -1 if not within the horizon */
+	public float intercept (BallPredictor ball, float x, float y) {
+		float s = maxvel;
+		float c = s * s / (2 * maxacc) - reach;
+		for (int segment = 0; segment < ball.getSegmentCount(); segment++) {
+			float start = ball.getStartTime(segment), end = ball.getEndTime(segment);
+			float vx = ball.getVelocityX(segment), vy = ball.getVelocityY(segment);
+			float startX = ball.getX(segment, start) - x, startY = ball.getY(segment, start) - y;
+			if (startX * startX + startY * startY <= square(Math.max(0, s * start - c))) return start;
+
+			// the ball relative to the player is at (dx + vx t, dy + vy t) on this segment
+			float dx = startX - vx * start, dy = startY - vy * start;
+
+			float a = vx * vx + vy * vy - s * s;
+			float b = 2 * (dx * vx + dy * vy + s * c);
+			float k = dx * dx + dy * dy - c * c;
+			float t;
+			if (Math.abs(a) < 1e-6f) {
+				// the ball as fast as the player, the equation is linear
+				if (b == 0) continue;
+				t = valid(-k / b, start, end, c);
+			} else {
+				float discriminant = b * b - 4 * a * k;
+				if (discriminant < 0) continue;
+				float root = (float)Math.sqrt(discriminant);
+				float t1 = valid((-b - root) / (2 * a), start, end, c);
+				float t2 = valid((-b + root) / (2 * a), start, end, c);
+				t = t1 < 0 ? t2 : t2 < 0 ? t1 : Math.min(t1, t2);
+			}
+			if (t >= 0) return t;
+		}
+		return -1;
+	}
+
+	/** @return the root if it lies on the segment and is no artifact of the squaring, -1 otherwise */
+	private float valid (float t, float start, float end, float c) {
+		return t > start && t <= end && maxvel * t - c >= 0 ? t : -1;
+	}
+
+	private static float square (float value) {
+		return value * value;
+	}
+}
@@ -0,0 +1,17 @@
+package com.fab;
+
+/** The large scale {@link Game}: 5000 players in four teams chasing 16 balls. */
+public class LargeGame extends Game {
+	public LargeGame () {
+		super(5000, 16, 4);
+		// the debug renderer draws thousands of circles slowly, step and draw on different threads
+		useSimulationThread = true;
+		parallelSteering = true;
+	}
+
+	@Override
+	public String[] getParameters () {
+		// the size is fixed by the class
+		return new String[0];
+	}
+}
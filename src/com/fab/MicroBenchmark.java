@@ -0,0 +1,166 @@
+package com.fab;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/** A small benchmark harness in the spirit of JMH. Every benchmark runs in its own forked JVM, so JIT decisions and heap state
+ * of one benchmark don't leak into the next, and every fork runs timed warmup iterations before the measured ones. The score
+ * is the average time per operation over all measured iterations of all forks, the error is the 99.9% confidence interval.
+ *
+ * Subclasses implement {@link #operation()} and return a value derived from the work done, it is consumed by the harness so
+ * the JIT can't eliminate the work as dead code. */
+public abstract class MicroBenchmark {
+	/** the defaults can be changed with -Dbench.forks, -Dbench.warmup, -Dbench.iterations and -Dbench.millis **/
+	public int forks = Integer.getInteger("bench.forks", 2);
+	public int warmupIterations = Integer.getInteger("bench.warmup", 5);
+	public int measurementIterations = Integer.getInteger("bench.iterations", 10);
+	public long iterationMillis = Integer.getInteger("bench.millis", 1000);
+
+	/** the JVM arguments of the forks, a fixed heap keeps GC behaviour comparable between runs **/
+	public String[] jvmArgs = {"-Xms512m", "-Xmx512m"};
+
+	/** written once per iteration, keeps the results of {@link #operation()} alive **/
+	public static volatile long sink;
+
+	/** @return the bytes the current thread allocated so far, 0 on VMs that don't count them */
+	public static long allocatedBytes () {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (!(threads instanceof com.sun.management.ThreadMXBean)) return 0;
+		return ((com.sun.management.ThreadMXBean)threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	/** called once per fork before the first iteration **/
+	protected void setUp (String param) {
+	}
+
+	/** a single operation, the time per call of this method is the score **/
+	protected abstract long operation ();
+
+	/** called once per fork after the last iteration **/
+	protected void tearDown () {
+	}
+
+	/** @return the average time per operation of a single iteration in nanoseconds */
+	private double iteration () {
+		long deadline = System.nanoTime() + iterationMillis * 1000000;
+		long operations = 0;
+		long result = 0;
+		long startTime = System.nanoTime();
+		long endTime;
+		do {
+			result += operation();
+			operations++;
+			endTime = System.nanoTime();
+		} while (endTime < deadline);
+		sink = result;
+		return (endTime - startTime) / (double)operations;
+	}
+
+	/** Runs warmup and measurement in this JVM. */
+	public double[] runInProcess (String param) {
+		setUp(param);
+		try {
+			for (int i = 0; i < warmupIterations; i++)
+				iteration();
+			double[] scores = new double[measurementIterations];
+			for (int i = 0; i < measurementIterations; i++)
+				scores[i] = iteration();
+			return scores;
+		} finally {
+			tearDown();
+		}
+	}
+
+	/** Runs the benchmark in {@link #forks} fresh JVMs, each started as
+	 * <code>java mainClass -fork benchmark param</code>. The main class has to call {@link #forked(MicroBenchmark, String)} for
+	 * these arguments. Without forks the benchmark runs in this JVM. */
+	public Score run (Class<?> mainClass, String benchmark, String param) throws IOException, InterruptedException {
+		List<Double> scores = new ArrayList<Double>();
+		if (forks <= 0) {
+			for (double score : runInProcess(param))
+				scores.add(score);
+		}
+		for (int fork = 0; fork < forks; fork++) {
+			ArrayList<String> command = new ArrayList<String>();
+			command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+			for (String arg : jvmArgs)
+				command.add(arg);
+			command.add("-Dbench.warmup=" + warmupIterations);
+			command.add("-Dbench.iterations=" + measurementIterations);
+			command.add("-Dbench.millis=" + iterationMillis);
+			command.add("-cp");
+			command.add(System.getProperty("java.class.path"));
+			command.add(mainClass.getName());
+			command.add("-fork");
+			command.add(benchmark);
+			command.add(param);
+
+			ProcessBuilder builder = new ProcessBuilder(command);
+			builder.redirectErrorStream(true);
+			Process process = builder.start();
+			BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.startsWith("# iteration "))
+					scores.add(Double.parseDouble(line.substring("# iteration ".length())));
+				else
+					System.err.println(line);
+			}
+			reader.close();
+			if (process.waitFor() != 0) throw new RuntimeException("Fork of " + benchmark + " " + param + " failed");
+		}
+		double[] values = new double[scores.size()];
+		for (int i = 0; i < values.length; i++)
+			values[i] = scores.get(i);
+		return new Score(benchmark, param, values);
+	}
+
+	/** The entry point of a forked JVM, prints the measured iterations for the parent. */
+	public static void forked (MicroBenchmark benchmark, String param) {
+		double[] scores = benchmark.runInProcess(param);
+		for (double score : scores)
+			System.out.println("# iteration " + score);
+	}
+
+	/** the aggregated result of all measured iterations **/
+	public static class Score {
+		public final String benchmark;
+		public final String param;
+		public final int count;
+		public final double mean;
+		public final double error;
+
+		public Score (String benchmark, String param, double[] scores) {
+			this.benchmark = benchmark;
+			this.param = param;
+			count = scores.length;
+
+			double sum = 0;
+			for (double score : scores)
+				sum += score;
+			mean = sum / count;
+
+			double variance = 0;
+			for (double score : scores)
+				variance += (score - mean) * (score - mean);
+			double stdDev = count > 1 ? Math.sqrt(variance / (count - 1)) : 0;
+			// normal approximation of the two sided 99.9% interval, fine for the usual 10+ iterations
+			error = 3.29 * stdDev / Math.sqrt(count);
+		}
+
+		public static final String HEADER = String.format(Locale.US, "%-28s %-20s %5s %14s %13s  %s", "Benchmark", "Param", "Cnt",
+			"Score", "Error", "Units");
+
+		@Override
+		public String toString () {
+			return String.format(Locale.US, "%-28s %-20s %5d %14.3f +- %10.3f  ns/op", benchmark, param, count, mean, error);
+		}
+	}
+}
@@ -17,6 +17,9 @@ public class MyFirstTriangle extends GdxTest {
 						mesh.setVertices(new float[] {-0.5f, -0.5f, 0, 0.5f, -0.5f, 0, 0, 0.5f, 0});
 						mesh.setIndices(new short[] {0, 1, 2});
 				}
+				// the triangle never changes, draw only on input and resize instead of sleeping in render()
+				Gdx.graphics.setContinuousRendering(false);
+				Gdx.graphics.requestRendering();
 		}
 
 		@Override
@@ -35,11 +38,6 @@ public class MyFirstTriangle extends GdxTest {
 				Gdx.app.log("RenderCountTest", String.valueOf(renderCount));
 				Gdx.gl10.glClear(GL10.GL_COLOR_BUFFER_BIT);
 				mesh.render(GL10.GL_TRIANGLES, 0, 3);
-				try {
-						Thread.sleep(2000);
-				} catch (InterruptedException e) {
-						Gdx.app.log("RenderCountTest", e.toString());
-				}
 		}
 
 		@Override
@@ -0,0 +1,122 @@
+package com.fab;
+
+/** Runs a {@link Task} over the index range [0, count) split into one chunk per thread, on a fixed set of daemon workers plus
+ * the calling thread, and returns when all chunks are done. Meant for the read only phases of a step that are run every
+ * frame: the workers are started once and wait on a monitor between runs, handing a run over allocates nothing. The monitor
+ * also orders the writes of the caller before the run and those of the workers before the return.
+ *
+ * An exception thrown by a chunk is rethrown by {@link #run(Task, int)} after all chunks finished. */
+public class ParallelFor {
+	public interface Task {
+		/** processes the indices from inclusive to exclusive, called concurrently for disjoint ranges **/
+		void run (int from, int to);
+	}
+
+	private final Worker[] workers;
+	private Task task;
+	private int count;
+	private int generation;
+	private int pending;
+	private boolean running = true;
+	private Throwable failure;
+
+	/** @param threads the number of threads working on a run including the caller, at least 1 */
+	public ParallelFor (int threads) {
+		workers = new Worker[Math.max(0, threads - 1)];
+		for (int i = 0; i < workers.length; i++) {
+			workers[i] = new Worker(i + 1);
+			workers[i].start();
+		}
+	}
+
+	public int getThreads () {
+		return workers.length + 1;
+	}
+
+	public void run (Task task, int count) {
+		int threads = workers.length + 1;
+		synchronized (this) {
+			this.task = task;
+			this.count = count;
+			pending = workers.length;
+			failure = null;
+			generation++;
+			notifyAll();
+		}
+
+		Throwable failure = null;
+		try {
+			task.run(0, count / threads);
+		} catch (Throwable t) {
+			failure = t;
+		}
+
+		synchronized (this) {
+			while (pending > 0) {
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new RuntimeException("Interrupted while waiting for the workers", e);
+				}
+			}
+			this.task = null;
+			if (failure == null) failure = this.failure;
+		}
+		if (failure instanceof RuntimeException) throw (RuntimeException)failure;
+		if (failure instanceof Error) throw (Error)failure;
+		if (failure != null) throw new RuntimeException(failure);
+	}
+
+	/** stops the workers, the instance can't be used afterwards **/
+	public synchronized void shutdown () {
+		running = false;
+		notifyAll();
+	}
+
+	private class Worker extends Thread {
+		private final int chunk;
+
+		Worker (int chunk) {
+			super("ParallelFor-" + chunk);
+			setDaemon(true);
+			this.chunk = chunk;
+		}
+
+		@Override
+		public void run () {
+			int seen = 0;
+			while (true) {
+				Task task;
+				int count;
+				synchronized (ParallelFor.this) {
+					while (running && generation == seen) {
+						try {
+							ParallelFor.this.wait();
+						} catch (InterruptedException e) {
+							return;
+						}
+					}
+					if (!running) return;
+					seen = generation;
+					task = ParallelFor.this.task;
+					count = ParallelFor.this.count;
+				}
+
+				int threads = workers.length + 1;
+				Throwable failure = null;
+				try {
+					task.run((int)((long)count * chunk / threads), (int)((long)count * (chunk + 1) / threads));
+				} catch (Throwable t) {
+					failure = t;
+				}
+
+				synchronized (ParallelFor.this) {
+					if (failure != null && ParallelFor.this.failure == null) ParallelFor.this.failure = failure;
+					pending--;
+					ParallelFor.this.notifyAll();
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,27 @@
+package com.fab;
+
+import com.badlogic.gdx.physics.box2d.World;
+
+/** A scene whose physics can be built and stepped without a window or GL context, e.g. by the {@link HeadlessRunner}. */
+public interface PhysicsScene extends FixedTimestep.Stepper {
+	/** creates and populates the world, touches no graphics **/
+	public void createPhysics ();
+
+	/** @return the world created by {@link #createPhysics()} */
+	public World getWorld ();
+
+	/** disposes the world created by {@link #createPhysics()} **/
+	public void disposePhysics ();
+
+	/** Seeds the random generator of the scene and turns off every decision that depends on the wall clock, so that the same
+	 * time steps and input give the same simulation. Called before {@link #createPhysics()} by {@link SessionRecorder} users
+	 * and the {@link SessionReplayer}. */
+	public void makeDeterministic (long seed);
+
+	/** @return the solver iterations of the steps, for fixing their counts before {@link #createPhysics()} and reporting them */
+	public AdaptiveIterations getIterations ();
+
+	/** @return the arguments of the constructor the scene was created with, so that the {@link SessionReplayer} can create the
+	 * same scene again through {@link SceneRegistry#create(String, String...)} */
+	public String[] getParameters ();
+}
@@ -31,20 +31,36 @@ package com.fab;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.Body;
 import com.badlogic.gdx.physics.box2d.BodyDef;
-import com.badlogic.gdx.physics.box2d.BodyDef.BodyType;
 import com.badlogic.gdx.physics.box2d.EdgeShape;
 import com.badlogic.gdx.physics.box2d.PolygonShape;
 import com.badlogic.gdx.physics.box2d.World;
 
 public class Pyramid extends Box2DTest {
+	/** the rows of the pyramid, the bottom row has as many boxes **/
+	final int e_count;
+
+	public Pyramid () {
+		this(20);
+	}
+
+	public Pyramid (int rows) {
+		e_count = rows;
+	}
+
+	@Override
+	public String[] getParameters () {
+		return new String[] {String.valueOf(e_count)};
+	}
+
 	@Override
 	protected void createWorld (World world) {
 		{
 			BodyDef bd = new BodyDef();
 			Body ground = world.createBody(bd);
 
+			// wide enough for the bottom row of large pyramids
 			EdgeShape shape = new EdgeShape();
-			shape.set(new Vector2(-40, 0), new Vector2(40, 0));
+			shape.set(new Vector2(-40, 0), new Vector2(Math.max(40, 1.125f * e_count), 0));
 			ground.createFixture(shape, 0.0f);
 			shape.dispose();
 		}
@@ -59,15 +75,14 @@ public class Pyramid extends Box2DTest {
 			Vector2 deltaX = new Vector2(0.5625f, 1.25f);
 			Vector2 deltaY = new Vector2(1.125f, 0.0f);
 
-			for (int i = 0; i < 20; i++) {
+			float[] positions = new float[e_count * (e_count + 1)];
+			int count = 0;
+			for (int i = 0; i < e_count; i++) {
 				y.set(x);
 
-				for (int j = i; j < 20; j++) {
-					BodyDef bd = new BodyDef();
-					bd.type = BodyType.DynamicBody;
-					bd.position.set(y);
-					Body body = world.createBody(bd);
-					body.createFixture(shape, 5.0f);
+				for (int j = i; j < e_count; j++) {
+					positions[count++] = y.x;
+					positions[count++] = y.y;
 
 					y.add(deltaY);
 				}
@@ -75,6 +90,8 @@ public class Pyramid extends Box2DTest {
 				x.add(deltaX);
 			}
 
+			new BodyBatchBuilder().set(shape, 5.0f).build(world, positions, count / 2);
+			shape.dispose();
 		}
 	}
 }
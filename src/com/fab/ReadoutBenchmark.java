@@ -0,0 +1,86 @@
+package com.fab;
+
+import java.io.IOException;
+import java.nio.FloatBuffer;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.PolygonShape;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxNativesLoader;
+
+/** Compares {@link BodyReadout} with the getters of Body with {@link MicroBenchmark}, reading {@link #COUNT} boxes into a direct
+ * FloatBuffer per operation. The getters read position, angle and awake flag of every body and put them one by one, as the
+ * renderers do. Both fetch the bodies from the World first. The boxes are either all awake or all asleep, a settled scene.
+ *
+ * Usage: ReadoutBenchmark [benchmark|all] */
+public class ReadoutBenchmark extends MicroBenchmark {
+	public static final String[] BENCHMARKS = {"getters/awake", "readout/awake", "getters/asleep", "readout/asleep"};
+	static final int COUNT = 10000;
+
+	World world;
+	PolygonShape box;
+	final Array<Body> bodies = new Array<Body>();
+	final BodyReadout readout = new BodyReadout();
+	FloatBuffer buffer;
+	boolean getters;
+
+	@Override
+	protected void setUp (String param) {
+		GdxNativesLoader.load();
+		getters = param.startsWith("getters");
+		world = new World(new Vector2(0, -10), true);
+		box = new PolygonShape();
+		box.setAsBox(0.5f, 0.5f);
+
+		float[] positions = new float[COUNT * 2];
+		for (int i = 0; i < COUNT; i++) {
+			positions[2 * i] = i % 100 * 1.1f;
+			positions[2 * i + 1] = i / 100 * 1.1f;
+		}
+		BodyBatchBuilder builder = new BodyBatchBuilder().set(box, 1);
+		builder.bodyDef.awake = !param.endsWith("asleep");
+		builder.build(world, positions, COUNT);
+		buffer = BodyReadout.newBuffer(COUNT);
+	}
+
+	@Override
+	protected long operation () {
+		FloatBuffer buffer = this.buffer;
+		buffer.clear();
+		if (getters) {
+			world.getBodies(bodies);
+			for (int i = 0; i < bodies.size; i++) {
+				Body body = bodies.get(i);
+				Vector2 position = body.getPosition();
+				buffer.put(position.x);
+				buffer.put(position.y);
+				buffer.put(body.getAngle());
+				buffer.put(body.isAwake() ? 1 : 0);
+			}
+		} else {
+			readout.read(world, buffer);
+		}
+		return Float.floatToRawIntBits(buffer.get(buffer.position() - 4));
+	}
+
+	@Override
+	protected void tearDown () {
+		world.dispose();
+		box.dispose();
+	}
+
+	public static void main (String[] args) throws IOException, InterruptedException {
+		if (args.length == 3 && args[0].equals("-fork")) {
+			forked(new ReadoutBenchmark(), args[2]);
+			return;
+		}
+
+		String[] benchmarks = args.length > 0 && !args[0].equals("all") ? new String[] {args[0]} : BENCHMARKS;
+
+		System.out.println(Score.HEADER);
+		for (String benchmark : benchmarks)
+			System.out.println(new ReadoutBenchmark().run(ReadoutBenchmark.class, "readout", benchmark));
+	}
+}
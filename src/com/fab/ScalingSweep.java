@@ -0,0 +1,92 @@
+package com.fab;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Locale;
+
+import com.badlogic.gdx.utils.GdxNativesLoader;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+/** Runs the scalable scenes at growing sizes and writes the step time against the body and contact count as CSV, to see where
+ * the solver stops scaling linearly. The cost per body and per constraint, contacts and joints like {@link AdaptiveIterations}
+ * counts them, stays flat as long as it does. The size starts at 10 and doubles until the scene would have more than the given
+ * number of bodies:
+ * <ul>
+ * <li>Pyramid: rows, one island whose contacts all depend on each other</li>
+ * <li>VerticalStack: columns of 16 boxes, many small islands</li>
+ * <li>Bridge, Chain: planks and links, joints instead of contacts</li>
+ * <li>SphereStack: falling spheres</li>
+ * </ul>
+ * Every run settles for {@link #SETTLE_STEPS} steps and measures the following ones, always with the
+ * {@link HeadlessRunner#VELOCITY_ITERATIONS} and {@link HeadlessRunner#POSITION_ITERATIONS} solver iterations, which every row
+ * records. Adaptive iterations would hide the cost of large scenes.
+ *
+ * Usage: ScalingSweep [steps] [maxBodies] [output.csv] [scene...] */
+public class ScalingSweep {
+	public static final String[] SCENES = {"Pyramid", "VerticalStack", "Bridge", "Chain", "SphereStack"};
+	public static final String CSV_HEADER = "size," + HeadlessRunner.CSV_HEADER + ",joints,us_per_body,us_per_constraint";
+
+	static final int SETTLE_STEPS = 60;
+	static final int FIRST_SIZE = 10;
+	static final float TIME_STEP = 1 / 60f;
+
+	/** @return the scene of the given size, not created yet */
+	public static Box2DTest create (String name, int size) {
+		if (name.equalsIgnoreCase("Pyramid")) return new Pyramid(size);
+		if (name.equalsIgnoreCase("VerticalStack")) return new VerticalStack(size, 16);
+		if (name.equalsIgnoreCase("Bridge")) return new Bridge(size);
+		if (name.equalsIgnoreCase("Chain")) return new Chain(size);
+		if (name.equalsIgnoreCase("SphereStack")) return new SphereStack(size);
+		throw new GdxRuntimeException("Scene " + name + " has no size, the scalable scenes are " + Arrays.toString(SCENES));
+	}
+
+	/** @return the dynamic bodies of the scene at the given size, without building it */
+	static long bodyCount (String name, int size) {
+		if (name.equalsIgnoreCase("Pyramid")) return size * (size + 1L) / 2;
+		if (name.equalsIgnoreCase("VerticalStack")) return size * 16L;
+		return size;
+	}
+
+	/** Builds the scene at the given size, settles it and measures the steps. */
+	public static String run (String name, int size, int steps) {
+		Box2DTest scene = create(name, size);
+		scene.makeDeterministic(1);
+		scene.iterations.adaptive = false;
+		scene.iterations.fixedVelocityIterations = HeadlessRunner.VELOCITY_ITERATIONS;
+		scene.iterations.fixedPositionIterations = HeadlessRunner.POSITION_ITERATIONS;
+		scene.createPhysics();
+		try {
+			for (int i = 0; i < SETTLE_STEPS; i++)
+				scene.step(TIME_STEP);
+			HeadlessRunner.Result result = HeadlessRunner.run(name, scene, steps, TIME_STEP);
+			int joints = scene.getWorld().getJointCount();
+			double perBody = result.meanStepMillis * 1000 / Math.max(1, result.bodyCount);
+			double perConstraint = result.meanStepMillis * 1000 / Math.max(1, result.contactCount + joints);
+			return size + "," + result.toCsv() + "," + joints + "," + String.format(Locale.US, "%.4f,%.4f", perBody, perConstraint);
+		} finally {
+			scene.disposePhysics();
+		}
+	}
+
+	public static void main (String[] args) throws IOException {
+		int steps = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+		long maxBodies = args.length > 1 ? Long.parseLong(args[1]) : 20000;
+		Writer out = args.length > 2 ? new FileWriter(args[2]) : new PrintWriter(System.out);
+		String[] scenes = args.length > 3 ? Arrays.copyOfRange(args, 3, args.length) : SCENES;
+		for (String name : scenes)
+			create(name, FIRST_SIZE);
+
+		GdxNativesLoader.load();
+		out.write(CSV_HEADER + "\n");
+		for (String name : scenes) {
+			for (int size = FIRST_SIZE; bodyCount(name, size) <= maxBodies; size *= 2) {
+				out.write(run(name, size, steps) + "\n");
+				out.flush();
+			}
+		}
+		if (args.length > 2) out.close();
+	}
+}
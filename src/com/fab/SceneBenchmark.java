@@ -0,0 +1,106 @@
+package com.fab;
+
+import java.io.IOException;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxNativesLoader;
+
+/** Benchmarks the physics of the heavier scenes with {@link MicroBenchmark}, one benchmark per scene for:
+ * <ul>
+ * <li>createWorld: building the scene through createPhysics() and disposing it again</li>
+ * <li>step: a single world step once the scene has settled, its bodies are kept awake</li>
+ * <li>readout: reading position and angle of every body, what a renderer does without Box2DDebugRenderer</li>
+ * <li>vertices: building the line vertices of the {@link BatchRenderer}, a frame of drawing without the upload</li>
+ * </ul>
+ * The scenes run with the fixed solver iterations of {@link PhysicsScene#makeDeterministic(long)}, the adaptive ones depend on
+ * the measured step times and so on the load of the machine.
+ *
+ * Usage: SceneBenchmark [benchmark|all] [scene|all] */
+public class SceneBenchmark extends MicroBenchmark {
+	public static final String[] BENCHMARKS = {"createWorld", "step", "readout", "vertices"};
+	public static final String[] SCENES = {"Pyramid", "VerticalStack", "Bridge", "Chain", "Cantilever", "SphereStack", "Game"};
+
+	/** steps before the measurement starts, stacks need a while to come to rest. They would fall asleep after that, sleeping is
+	 * turned off so that the step benchmark measures a resting world and not a sleeping one **/
+	static final int SETTLE_STEPS = 300;
+	static final float TIME_STEP = 1 / 60f;
+
+	final String benchmark;
+	PhysicsScene scene;
+	final Array<Body> bodies = new Array<Body>();
+	float[] transforms;
+	final BatchRenderer batchRenderer = new BatchRenderer();
+
+	public SceneBenchmark (String benchmark) {
+		this.benchmark = benchmark;
+	}
+
+	@Override
+	protected void setUp (String param) {
+		GdxNativesLoader.load();
+		scene = SceneRegistry.create(param);
+		scene.makeDeterministic(1);
+		if (benchmark.equals("createWorld")) return;
+
+		scene.createPhysics();
+		scene.getWorld().getBodies(bodies);
+		for (int i = 0; i < bodies.size; i++)
+			bodies.get(i).setSleepingAllowed(false);
+		for (int i = 0; i < SETTLE_STEPS; i++)
+			scene.step(TIME_STEP);
+		scene.getWorld().getBodies(bodies);
+		transforms = new float[bodies.size * 3];
+	}
+
+	@Override
+	protected long operation () {
+		if (benchmark.equals("createWorld")) {
+			// disposing is a single native call and small against the thousands of createBody and createFixture calls
+			scene.createPhysics();
+			World world = scene.getWorld();
+			long bodyCount = world.getBodyCount();
+			scene.disposePhysics();
+			return bodyCount;
+		} else if (benchmark.equals("step")) {
+			scene.step(TIME_STEP);
+			return 1;
+		} else if (benchmark.equals("vertices")) {
+			return batchRenderer.build(scene.getWorld());
+		} else {
+			float[] transforms = this.transforms;
+			for (int i = 0, j = 0; i < bodies.size; i++) {
+				Body body = bodies.get(i);
+				Vector2 position = body.getPosition();
+				transforms[j++] = position.x;
+				transforms[j++] = position.y;
+				transforms[j++] = body.getAngle();
+			}
+			return Float.floatToRawIntBits(transforms[0]);
+		}
+	}
+
+	@Override
+	protected void tearDown () {
+		if (scene.getWorld() != null) scene.disposePhysics();
+	}
+
+	public static void main (String[] args) throws IOException, InterruptedException {
+		if (args.length == 3 && args[0].equals("-fork")) {
+			forked(new SceneBenchmark(args[1]), args[2]);
+			return;
+		}
+
+		String[] benchmarks = args.length > 0 && !args[0].equals("all") ? new String[] {args[0]} : BENCHMARKS;
+		String[] scenes = args.length > 1 && !args[1].equals("all") ? new String[] {args[1]} : SCENES;
+
+		System.out.println(Score.HEADER);
+		for (String benchmark : benchmarks) {
+			for (String scene : scenes) {
+				System.out.println(new SceneBenchmark(benchmark).run(SceneBenchmark.class, benchmark, scene));
+			}
+		}
+	}
+}
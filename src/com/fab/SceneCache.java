@@ -0,0 +1,259 @@
+package com.fab;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.Joint;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.physics.box2d.joints.DistanceJoint;
+import com.badlogic.gdx.physics.box2d.joints.RevoluteJoint;
+import com.badlogic.gdx.physics.box2d.joints.RopeJoint;
+import com.badlogic.gdx.physics.box2d.joints.WeldJoint;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxNativesLoader;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.TimeUtils;
+
+/** Loads scenes from a JSON description of {@link SceneDefinition} or from its compiled form, a {@link WorldSnapshot} of the
+ * freshly built world. Compiled scenes are kept in a directory and named after the description and a hash of its content,
+ * so the first load of a description parses and builds it and stores the compiled form, and every later load of the same
+ * content only maps the snapshot, without parsing JSON or looking anything up by reflection. An edited description gets a new
+ * hash and is compiled again, the compiled forms of its older content are deleted then.
+ *
+ * The snapshot keeps the bodies and joints in the order the description created them, so a compiled scene steps exactly like
+ * the one built from JSON. Files ending in .b2ws are loaded as compiled scenes directly, which is how a build can ship the
+ * compiled forms only.
+ *
+ * Usage: SceneCache scene.json... prints the time to build every scene from JSON and to load its compiled form, and checks
+ * that both have the same joints and step the same */
+public class SceneCache {
+	public static final String COMPILED_EXTENSION = "b2ws";
+
+	private final File directory;
+	private final SceneDefinition definition = new SceneDefinition();
+	private final WorldSnapshot snapshot = new WorldSnapshot();
+	private final MessageDigest digest;
+
+	/** whether the last load found the compiled form **/
+	public boolean compiled;
+
+	/** keeps the compiled scenes in the directory of the property fab.sceneCache, by default fab-scenes in the temp directory **/
+	public SceneCache () {
+		this(new File(System.getProperty("fab.sceneCache", new File(System.getProperty("java.io.tmpdir"), "fab-scenes").getPath())));
+	}
+
+	public SceneCache (File directory) {
+		this.directory = directory;
+		try {
+			digest = MessageDigest.getInstance("SHA-1");
+		} catch (NoSuchAlgorithmException e) {
+			throw new GdxRuntimeException(e);
+		}
+	}
+
+	/** Builds a new world from a description or a compiled scene. */
+	public World load (FileHandle file) {
+		if (file.extension().equals(COMPILED_EXTENSION)) {
+			compiled = true;
+			return loadCompiled(file);
+		}
+
+		byte[] json = file.readBytes();
+		File cached = getCompiledFile(file.nameWithoutExtension(), json);
+		try {
+			if (cached.exists()) {
+				compiled = true;
+				return snapshot.load(cached);
+			}
+
+			compiled = false;
+			World world = definition.build(new String(json, "UTF-8"));
+			compile(world, file.nameWithoutExtension(), cached);
+			return world;
+		} catch (IOException e) {
+			throw new GdxRuntimeException("Couldn't load the scene " + file, e);
+		}
+	}
+
+	private World loadCompiled (FileHandle file) {
+		File plain = file.file();
+		try {
+			if (plain.isFile()) return snapshot.load(plain);
+		} catch (IOException e) {
+			throw new GdxRuntimeException("Couldn't load the compiled scene " + file, e);
+		}
+		// packed into the jar or the apk, read it into memory instead of mapping it
+		return snapshot.load(ByteBuffer.wrap(file.readBytes()));
+	}
+
+	/** @return the compiled form of the content, which depends on the snapshot format as well */
+	File getCompiledFile (String name, byte[] json) {
+		digest.reset();
+		digest.update((byte)WorldSnapshot.VERSION);
+		byte[] hash = digest.digest(json);
+		StringBuilder path = new StringBuilder(name).append('-');
+		for (byte b : hash)
+			path.append(Character.forDigit((b >> 4) & 15, 16)).append(Character.forDigit(b & 15, 16));
+		return new File(directory, path.append('.').append(COMPILED_EXTENSION).toString());
+	}
+
+	/** saves the freshly built world, through a temporary file so a concurrent load never sees a half written one **/
+	private void compile (World world, String name, File cached) throws IOException {
+		if (!directory.isDirectory() && !directory.mkdirs()) throw new IOException("Couldn't create " + directory);
+		// createTempFile wants a prefix of three characters or more
+		File temporary = File.createTempFile("scene-" + name, ".tmp", directory);
+		try {
+			snapshot.save(world, definition.bodies, definition.joints, definition.collideConnected, temporary);
+			if (!temporary.renameTo(cached)) throw new IOException("Couldn't rename " + temporary + " to " + cached);
+		} finally {
+			temporary.delete();
+		}
+
+		// compiled forms of older content
+		String prefix = name + "-";
+		File[] files = directory.listFiles();
+		if (files == null) return;
+		for (File file : files) {
+			String fileName = file.getName();
+			if (fileName.startsWith(prefix) && fileName.endsWith("." + COMPILED_EXTENSION) && !file.equals(cached)
+				&& fileName.length() == cached.getName().length()) file.delete();
+		}
+	}
+
+	/** releases the native shapes kept for loading **/
+	public void dispose () {
+		snapshot.dispose();
+	}
+
+	static final int CHECK_STEPS = 120;
+
+	/** Compares the joints of both worlds, then steps them and compares the bodies and contacts. Box2D doesn't tell the
+	 * collideConnected flag of a joint, it shows in the contacts between connected bodies. */
+	static void check (String name, World built, World loaded) {
+		if (!describeJoints(built).equals(describeJoints(loaded)))
+			throw new GdxRuntimeException("The compiled form of " + name + " has different joints than the description");
+		for (int i = 0; i < CHECK_STEPS; i++) {
+			built.step(1 / 60f, 8, 3);
+			loaded.step(1 / 60f, 8, 3);
+			if (built.getContactCount() != loaded.getContactCount())
+				throw new GdxRuntimeException("The compiled form of " + name + " has " + loaded.getContactCount() + " contacts after "
+					+ (i + 1) + " steps instead of " + built.getContactCount());
+		}
+		if (!describeBodies(built).equals(describeBodies(loaded)))
+			throw new GdxRuntimeException("The compiled form of " + name + " steps differently than the description");
+	}
+
+	/** @return the type, the world anchors and the settings of every joint, sorted as World.getJoints has no fixed order */
+	static Array<String> describeJoints (World world) {
+		Array<Joint> joints = new Array<Joint>();
+		world.getJoints(joints);
+		Array<String> descriptions = new Array<String>();
+		for (Joint joint : joints) {
+			StringBuilder text = new StringBuilder(joint.getType().toString());
+			Vector2 anchorA = joint.getAnchorA(), anchorB = joint.getAnchorB();
+			append(text, anchorA.x, anchorA.y);
+			append(text, anchorB.x, anchorB.y);
+			switch (joint.getType()) {
+			case RevoluteJoint:
+				RevoluteJoint revolute = (RevoluteJoint)joint;
+				append(text, revolute.getReferenceAngle(), revolute.isLimitEnabled() ? 1 : 0, revolute.getLowerLimit(),
+					revolute.getUpperLimit(), revolute.isMotorEnabled() ? 1 : 0, revolute.getMotorSpeed(), revolute.getMaxMotorTorque());
+				break;
+			case WeldJoint:
+				append(text, ((WeldJoint)joint).getReferenceAngle());
+				break;
+			case DistanceJoint:
+				DistanceJoint distance = (DistanceJoint)joint;
+				append(text, distance.getLength(), distance.getFrequency(), distance.getDampingRatio());
+				break;
+			case RopeJoint:
+				append(text, ((RopeJoint)joint).getMaxLength());
+				break;
+			default:
+				break;
+			}
+			descriptions.add(text.toString());
+		}
+		descriptions.sort();
+		return descriptions;
+	}
+
+	/** @return the type, transform and velocity of every body, sorted */
+	static Array<String> describeBodies (World world) {
+		Array<Body> bodies = new Array<Body>();
+		world.getBodies(bodies);
+		Array<String> descriptions = new Array<String>();
+		for (Body body : bodies) {
+			StringBuilder text = new StringBuilder(body.getType().toString());
+			Vector2 position = body.getPosition(), velocity = body.getLinearVelocity();
+			append(text, position.x, position.y, body.getAngle());
+			append(text, velocity.x, velocity.y, body.getAngularVelocity());
+			descriptions.add(text.toString());
+		}
+		descriptions.sort();
+		return descriptions;
+	}
+
+	private static void append (StringBuilder text, float... values) {
+		for (float value : values)
+			text.append(' ').append(String.format(Locale.US, "%.4f", value));
+	}
+
+	public static void main (String[] args) throws UnsupportedEncodingException {
+		if (args.length == 0) {
+			System.out.println("Usage: SceneCache scene.json...");
+			return;
+		}
+
+		GdxNativesLoader.load();
+		SceneDefinition definition = new SceneDefinition();
+		SceneCache cache = new SceneCache();
+		System.out.println("scene,bodies,joints,json_ms,compiled_ms");
+		for (String path : args) {
+			FileHandle file = new FileHandle(path);
+			// the fastest of several loads, the first ones load classes and run interpreted
+			long jsonTime = Long.MAX_VALUE;
+			int bodyCount = 0, jointCount = 0;
+			for (int i = 0; i < WorldSnapshot.REPEATS; i++) {
+				long startTime = TimeUtils.nanoTime();
+				World world = definition.build(new String(file.readBytes(), "UTF-8"));
+				jsonTime = Math.min(jsonTime, TimeUtils.nanoTime() - startTime);
+				bodyCount = world.getBodyCount();
+				jointCount = world.getJointCount();
+				world.dispose();
+			}
+
+			cache.load(file).dispose();
+			long compiledTime = Long.MAX_VALUE;
+			for (int i = 0; i < WorldSnapshot.REPEATS; i++) {
+				long startTime = TimeUtils.nanoTime();
+				World world = cache.load(file);
+				compiledTime = Math.min(compiledTime, TimeUtils.nanoTime() - startTime);
+				if (!cache.compiled || world.getBodyCount() != bodyCount || world.getJointCount() != jointCount)
+					throw new GdxRuntimeException("The compiled form of " + path + " differs from the description");
+				world.dispose();
+			}
+
+			World built = definition.build(new String(file.readBytes(), "UTF-8"));
+			World loaded = cache.load(file);
+			try {
+				check(path, built, loaded);
+			} finally {
+				built.dispose();
+				loaded.dispose();
+			}
+
+			System.out.println(String.format(Locale.US, "%s,%d,%d,%.3f,%.3f", file.nameWithoutExtension(), bodyCount, jointCount,
+				jsonTime / 1000000.0, compiledTime / 1000000.0));
+		}
+		cache.dispose();
+	}
+}
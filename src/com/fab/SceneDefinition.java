@@ -0,0 +1,333 @@
+package com.fab;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.BodyDef;
+import com.badlogic.gdx.physics.box2d.BodyDef.BodyType;
+import com.badlogic.gdx.physics.box2d.ChainShape;
+import com.badlogic.gdx.physics.box2d.CircleShape;
+import com.badlogic.gdx.physics.box2d.EdgeShape;
+import com.badlogic.gdx.physics.box2d.FixtureDef;
+import com.badlogic.gdx.physics.box2d.Joint;
+import com.badlogic.gdx.physics.box2d.JointDef;
+import com.badlogic.gdx.physics.box2d.PolygonShape;
+import com.badlogic.gdx.physics.box2d.Shape;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.physics.box2d.joints.DistanceJointDef;
+import com.badlogic.gdx.physics.box2d.joints.RevoluteJointDef;
+import com.badlogic.gdx.physics.box2d.joints.RopeJointDef;
+import com.badlogic.gdx.physics.box2d.joints.WeldJointDef;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.BooleanArray;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.ObjectMap;
+
+/** Builds a {@link World} from a scene description in JSON, so the size of a scene can be changed without touching its Java
+ * code. {@link SceneCache} compiles the descriptions into {@link WorldSnapshot}s that load without parsing.
+ *
+ * A scene has the gravity and lists of bodies and joints, points are arrays [x, y] and angles are in radians:
+ *
+ * <pre>
+ * { "gravity": [0, -10],
+ *   "bodies": [
+ *     { "name": "ground", "fixtures": [ { "edge": [-40, 0, 40, 0] } ] },
+ *     { "name": "box", "type": "dynamic", "position": [-7, 0.75], "fixtures": [ { "box": [0.5, 0.5], "density": 5 } ],
+ *       "repeat": { "count": 20, "offset": [1.125, 0] }, "rows": { "count": 20, "offset": [0.5625, 1.25], "shrink": 1 } } ],
+ *   "joints": [
+ *     { "type": "revolute", "bodyA": "ground", "bodyB": "box", "indexB": -1, "anchor": [3, 20] } ] }
+ * </pre>
+ *
+ * A body has a type (static, kinematic or dynamic, static by default), position, angle, linearDamping, angularDamping,
+ * gravityScale, bullet, fixedRotation, allowSleep and awake. A fixture has one of the shapes circle (the radius, with an
+ * optional center), box (the half extents, with an optional center and angle), polygon, edge or chain (flat vertex lists, a
+ * chain with "loop": true is closed), and density, friction, restitution, sensor, categoryBits, maskBits and groupIndex.
+ *
+ * "repeat" creates count copies of a body, each one moved by the offset from the one before. "rows" repeats that row count
+ * times, every row moved by its offset and shrink copies shorter than the one below. All copies of a body belong to its name,
+ * joints pick one of them with indexA and indexB, negative indices count from the last copy.
+ *
+ * Joints are revolute and weld with a world anchor, distance with the world anchors anchorA and anchorB, frequencyHz and
+ * dampingRatio, and rope with the local anchors anchorA and anchorB and maxLength. Revolute joints take enableLimit,
+ * lowerAngle, upperAngle, enableMotor, motorSpeed and maxMotorTorque, every joint collideConnected. Instead of bodyA and
+ * bodyB a revolute or weld joint can name a "chain": consecutive copies of the body are connected at their position plus the
+ * anchor, and the first and last copy to the bodies "start" and "end" if given, the last one at its position plus "endAnchor",
+ * which defaults to the mirrored anchor. */
+public class SceneDefinition {
+	private final JsonReader reader = new JsonReader();
+
+	/** the bodies and joints in the order the last build created them, which the compiled form keeps **/
+	final Array<Body> bodies = new Array<Body>();
+	final Array<Joint> joints = new Array<Joint>();
+	/** the collideConnected flag of every joint, Box2D doesn't tell it **/
+	final BooleanArray collideConnected = new BooleanArray();
+	/** the copies of every named body **/
+	private final ObjectMap<String, Array<Body>> names = new ObjectMap<String, Array<Body>>();
+
+	private final Vector2 position = new Vector2();
+	private final Vector2 rowPosition = new Vector2();
+	private final Vector2 anchor = new Vector2();
+	private final Vector2 anchor2 = new Vector2();
+
+	public World build (FileHandle file) {
+		return build(reader.parse(file));
+	}
+
+	public World build (String json) {
+		return build(reader.parse(json));
+	}
+
+	/** Builds a new world from the parsed description. */
+	public World build (JsonValue scene) {
+		bodies.clear();
+		joints.clear();
+		collideConnected.clear();
+		names.clear();
+		World world = new World(getVector(scene.get("gravity"), 0, -10, position), true);
+		try {
+			for (JsonValue body = child(scene, "bodies"); body != null; body = body.next)
+				createBodies(world, body);
+			for (JsonValue joint = child(scene, "joints"); joint != null; joint = joint.next)
+				createJoints(world, joint);
+		} catch (RuntimeException e) {
+			world.dispose();
+			throw e;
+		}
+		return world;
+	}
+
+	private static JsonValue child (JsonValue value, String name) {
+		JsonValue list = value.get(name);
+		return list == null ? null : list.child;
+	}
+
+	private void createBodies (World world, JsonValue value) {
+		BodyDef def = new BodyDef();
+		def.type = getBodyType(value.getString("type", "static"));
+		def.angle = value.getFloat("angle", 0);
+		def.linearDamping = value.getFloat("linearDamping", 0);
+		def.angularDamping = value.getFloat("angularDamping", 0);
+		def.gravityScale = value.getFloat("gravityScale", 1);
+		def.bullet = value.getBoolean("bullet", false);
+		def.fixedRotation = value.getBoolean("fixedRotation", false);
+		def.allowSleep = value.getBoolean("allowSleep", true);
+		def.awake = value.getBoolean("awake", true);
+
+		JsonValue repeat = value.get("repeat");
+		int count = repeat != null ? repeat.getInt("count") : 1;
+		float offsetX = 0, offsetY = 0;
+		if (repeat != null) {
+			offsetX = repeat.get("offset").getFloat(0);
+			offsetY = repeat.get("offset").getFloat(1);
+		}
+		JsonValue rows = value.get("rows");
+		int rowCount = rows != null ? rows.getInt("count") : 1;
+		int shrink = rows != null ? rows.getInt("shrink", 0) : 0;
+		float rowOffsetX = 0, rowOffsetY = 0;
+		if (rows != null) {
+			rowOffsetX = rows.get("offset").getFloat(0);
+			rowOffsetY = rows.get("offset").getFloat(1);
+		}
+
+		Array<Body> copies = new Array<Body>();
+		String name = value.getString("name", null);
+		if (name != null) names.put(name, copies);
+
+		FixtureDef[] fixtures = getFixtures(value.get("fixtures"));
+		try {
+			getVector(value.get("position"), 0, 0, rowPosition);
+			for (int row = 0; row < rowCount; row++) {
+				position.set(rowPosition);
+				for (int i = 0; i < count - shrink * row; i++) {
+					def.position.set(position);
+					Body body = world.createBody(def);
+					for (FixtureDef fixture : fixtures)
+						body.createFixture(fixture);
+					bodies.add(body);
+					copies.add(body);
+					// moved step by step like the loops of the Java scenes, which gives the same positions to the last bit
+					position.add(offsetX, offsetY);
+				}
+				rowPosition.add(rowOffsetX, rowOffsetY);
+			}
+		} finally {
+			for (FixtureDef fixture : fixtures)
+				fixture.shape.dispose();
+		}
+	}
+
+	private static BodyType getBodyType (String type) {
+		if (type.equals("static")) return BodyType.StaticBody;
+		if (type.equals("kinematic")) return BodyType.KinematicBody;
+		if (type.equals("dynamic")) return BodyType.DynamicBody;
+		throw new GdxRuntimeException("Unknown body type " + type);
+	}
+
+	private FixtureDef[] getFixtures (JsonValue list) {
+		FixtureDef[] fixtures = new FixtureDef[list == null ? 0 : list.size];
+		int i = 0;
+		try {
+			for (JsonValue value = list == null ? null : list.child; value != null; value = value.next, i++) {
+				FixtureDef fixture = new FixtureDef();
+				fixture.density = value.getFloat("density", 0);
+				fixture.friction = value.getFloat("friction", 0.2f);
+				fixture.restitution = value.getFloat("restitution", 0);
+				fixture.isSensor = value.getBoolean("sensor", false);
+				fixture.filter.categoryBits = (short)value.getInt("categoryBits", 0x0001);
+				fixture.filter.maskBits = (short)value.getInt("maskBits", 0xffff);
+				fixture.filter.groupIndex = (short)value.getInt("groupIndex", 0);
+				fixture.shape = getShape(value);
+				fixtures[i] = fixture;
+			}
+		} catch (RuntimeException e) {
+			for (int j = 0; j < i; j++)
+				fixtures[j].shape.dispose();
+			throw e;
+		}
+		return fixtures;
+	}
+
+	private Shape getShape (JsonValue value) {
+		JsonValue points;
+		if ((points = value.get("circle")) != null) {
+			CircleShape circle = new CircleShape();
+			circle.setRadius(points.asFloat());
+			circle.setPosition(getVector(value.get("center"), 0, 0, position));
+			return circle;
+		}
+		if ((points = value.get("box")) != null) {
+			PolygonShape box = new PolygonShape();
+			box.setAsBox(points.getFloat(0), points.getFloat(1), getVector(value.get("center"), 0, 0, position),
+				value.getFloat("angle", 0));
+			return box;
+		}
+		if ((points = value.get("polygon")) != null) {
+			PolygonShape polygon = new PolygonShape();
+			polygon.set(getFloats(points));
+			return polygon;
+		}
+		if ((points = value.get("edge")) != null) {
+			EdgeShape edge = new EdgeShape();
+			edge.set(points.getFloat(0), points.getFloat(1), points.getFloat(2), points.getFloat(3));
+			return edge;
+		}
+		if ((points = value.get("chain")) != null) {
+			ChainShape chain = new ChainShape();
+			if (value.getBoolean("loop", false))
+				chain.createLoop(getVectors(points));
+			else
+				chain.createChain(getVectors(points));
+			return chain;
+		}
+		throw new GdxRuntimeException("Fixture without a shape: " + value);
+	}
+
+	private static float[] getFloats (JsonValue list) {
+		float[] floats = new float[list.size];
+		for (int i = 0; i < floats.length; i++)
+			floats[i] = list.getFloat(i);
+		return floats;
+	}
+
+	private static Vector2[] getVectors (JsonValue list) {
+		Vector2[] vectors = new Vector2[list.size / 2];
+		for (int i = 0; i < vectors.length; i++)
+			vectors[i] = new Vector2(list.getFloat(2 * i), list.getFloat(2 * i + 1));
+		return vectors;
+	}
+
+	private static Vector2 getVector (JsonValue value, float defaultX, float defaultY, Vector2 out) {
+		if (value == null) return out.set(defaultX, defaultY);
+		return out.set(value.getFloat(0), value.getFloat(1));
+	}
+
+	private void createJoints (World world, JsonValue value) {
+		String type = value.getString("type");
+		String chain = value.getString("chain", null);
+		if (chain == null) {
+			Body bodyA = getBody(value.getString("bodyA"), value.getInt("indexA", 0));
+			Body bodyB = getBody(value.getString("bodyB"), value.getInt("indexB", 0));
+			createJoint(world, value, type, bodyA, bodyB, getVector(value.get("anchor"), 0, 0, anchor));
+			return;
+		}
+		if (!type.equals("revolute") && !type.equals("weld"))
+			throw new GdxRuntimeException("Only revolute and weld joints can form a chain, not " + type);
+
+		Array<Body> links = getBodies(chain);
+		getVector(value.get("anchor"), 0, 0, anchor2);
+		String start = value.getString("start", null);
+		if (start != null) {
+			Body first = links.first();
+			createJoint(world, value, type, getBody(start, 0), first, anchor.set(first.getPosition()).add(anchor2));
+		}
+		for (int i = 1; i < links.size; i++) {
+			Body body = links.get(i);
+			createJoint(world, value, type, links.get(i - 1), body, anchor.set(body.getPosition()).add(anchor2));
+		}
+		String end = value.getString("end", null);
+		if (end != null) {
+			Body last = links.peek();
+			JsonValue endAnchor = value.get("endAnchor");
+			if (endAnchor != null)
+				getVector(endAnchor, 0, 0, anchor2);
+			else
+				anchor2.scl(-1);
+			createJoint(world, value, type, last, getBody(end, 0), anchor.set(last.getPosition()).add(anchor2));
+		}
+	}
+
+	private void createJoint (World world, JsonValue value, String type, Body bodyA, Body bodyB, Vector2 anchor) {
+		JointDef def;
+		if (type.equals("revolute")) {
+			RevoluteJointDef revolute = new RevoluteJointDef();
+			revolute.initialize(bodyA, bodyB, anchor);
+			revolute.enableLimit = value.getBoolean("enableLimit", false);
+			revolute.lowerAngle = value.getFloat("lowerAngle", 0);
+			revolute.upperAngle = value.getFloat("upperAngle", 0);
+			revolute.enableMotor = value.getBoolean("enableMotor", false);
+			revolute.motorSpeed = value.getFloat("motorSpeed", 0);
+			revolute.maxMotorTorque = value.getFloat("maxMotorTorque", 0);
+			def = revolute;
+		} else if (type.equals("weld")) {
+			WeldJointDef weld = new WeldJointDef();
+			weld.initialize(bodyA, bodyB, anchor);
+			def = weld;
+		} else if (type.equals("distance")) {
+			DistanceJointDef distance = new DistanceJointDef();
+			distance.initialize(bodyA, bodyB, getVector(value.get("anchorA"), 0, 0, this.anchor),
+				getVector(value.get("anchorB"), 0, 0, anchor2));
+			distance.frequencyHz = value.getFloat("frequencyHz", 0);
+			distance.dampingRatio = value.getFloat("dampingRatio", 0);
+			def = distance;
+		} else if (type.equals("rope")) {
+			RopeJointDef rope = new RopeJointDef();
+			rope.bodyA = bodyA;
+			rope.bodyB = bodyB;
+			getVector(value.get("anchorA"), 0, 0, rope.localAnchorA);
+			getVector(value.get("anchorB"), 0, 0, rope.localAnchorB);
+			rope.maxLength = value.getFloat("maxLength");
+			def = rope;
+		} else {
+			throw new GdxRuntimeException("Unknown joint type " + type);
+		}
+		def.collideConnected = value.getBoolean("collideConnected", false);
+		joints.add(world.createJoint(def));
+		collideConnected.add(def.collideConnected);
+	}
+
+	private Array<Body> getBodies (String name) {
+		Array<Body> copies = names.get(name);
+		if (copies == null || copies.size == 0) throw new GdxRuntimeException("No body named " + name);
+		return copies;
+	}
+
+	private Body getBody (String name, int index) {
+		Array<Body> copies = getBodies(name);
+		if (index < 0) index += copies.size;
+		if (index < 0 || index >= copies.size)
+			throw new GdxRuntimeException("Body " + name + " has no copy " + index + ", only " + copies.size);
+		return copies.get(index);
+	}
+}
@@ -0,0 +1,114 @@
+package com.fab;
+
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.badlogic.gdx.ApplicationListener;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+/** Lists every scene that can be run, the Box2D tests and the games, by name. The name of a scene is the simple name of its
+ * class and matches case insensitively, the {@link HeadlessRunner}, the benchmarks and the desktop launcher pick scenes from
+ * here. All scenes are ApplicationListeners and can be shown in a window as well as stepped headless. */
+public class SceneRegistry {
+	static final List<Class<? extends PhysicsScene>> SCENES = new ArrayList<Class<? extends PhysicsScene>>();
+	static {
+		SCENES.add(ApplyForce.class);
+		SCENES.add(BodyTypes.class);
+		SCENES.add(Bridge.class);
+		SCENES.add(Cantilever.class);
+		SCENES.add(Chain.class);
+		SCENES.add(CharacterCollision.class);
+		SCENES.add(CollisionFiltering.class);
+		SCENES.add(ContinuousTest.class);
+		SCENES.add(ConveyorBelt.class);
+		SCENES.add(DataScene.class);
+		SCENES.add(DebugRendererTest.class);
+		SCENES.add(OneSidedPlatform.class);
+		SCENES.add(Prismatic.class);
+		SCENES.add(Pyramid.class);
+		SCENES.add(SimpleTest.class);
+		SCENES.add(SphereStack.class);
+		SCENES.add(VaryingRestitution.class);
+		SCENES.add(VerticalStack.class);
+		SCENES.add(Game.class);
+		SCENES.add(LargeGame.class);
+	}
+
+	/** @return the names of all scenes in the order they are benchmarked */
+	public static String[] getNames () {
+		String[] names = new String[SCENES.size()];
+		for (int i = 0; i < names.length; i++)
+			names[i] = SCENES.get(i).getSimpleName();
+		return names;
+	}
+
+	/** @return the class of the scene, null if there is none of that name */
+	public static Class<? extends PhysicsScene> find (String name) {
+		for (Class<? extends PhysicsScene> type : SCENES)
+			if (type.getSimpleName().equalsIgnoreCase(name)) return type;
+		return null;
+	}
+
+	/** @param parameters the arguments of a public constructor of the scene, ints or strings, none for the default one
+	 * @return a new instance of the scene, its physics is not created yet */
+	public static PhysicsScene create (String name, String... parameters) {
+		Class<? extends PhysicsScene> type = find(name);
+		if (type == null) throw new GdxRuntimeException("Unknown scene " + name + ", the scenes are " + list());
+		if (parameters.length == 0) return create(type);
+
+		for (Constructor<?> constructor : type.getConstructors()) {
+			Object[] arguments = arguments(constructor.getParameterTypes(), parameters);
+			if (arguments == null) continue;
+			try {
+				return (PhysicsScene)constructor.newInstance(arguments);
+			} catch (Exception e) {
+				throw new GdxRuntimeException("Couldn't instantiate scene " + name + " " + Arrays.toString(parameters), e);
+			}
+		}
+		throw new GdxRuntimeException("Scene " + name + " has no constructor for " + Arrays.toString(parameters));
+	}
+
+	/** @return the parameters converted to the types, null if they don't fit */
+	private static Object[] arguments (Class<?>[] types, String[] parameters) {
+		if (types.length != parameters.length) return null;
+		Object[] arguments = new Object[types.length];
+		for (int i = 0; i < types.length; i++) {
+			if (types[i] == String.class)
+				arguments[i] = parameters[i];
+			else if (types[i] == int.class) {
+				try {
+					arguments[i] = Integer.valueOf(parameters[i]);
+				} catch (NumberFormatException e) {
+					return null;
+				}
+			} else
+				return null;
+		}
+		return arguments;
+	}
+
+	public static PhysicsScene create (Class<? extends PhysicsScene> type) {
+		try {
+			return type.getDeclaredConstructor().newInstance();
+		} catch (Exception e) {
+			throw new GdxRuntimeException("Couldn't instantiate scene " + type.getName(), e);
+		}
+	}
+
+	/** @return a new instance of the scene for showing it in a window */
+	public static ApplicationListener createApplication (String name) {
+		return (ApplicationListener)create(name);
+	}
+
+	/** @return the names of all scenes separated by commas */
+	public static String list () {
+		StringBuilder text = new StringBuilder();
+		for (String name : getNames()) {
+			if (text.length() > 0) text.append(", ");
+			text.append(name);
+		}
+		return text.toString();
+	}
+}
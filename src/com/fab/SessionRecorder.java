@@ -0,0 +1,201 @@
+package com.fab;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.badlogic.gdx.InputProcessor;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+/** Records a session of a {@link PhysicsScene} into a compact binary log that {@link SessionReplayer} plays back without a
+ * window. The recorder sits between the scene and its callers: it is registered as input processor and passed as the scene
+ * to step, forwards everything and writes the time step of every step and every input event in the order they reach the
+ * scene. Together with the seed in the header that is all a deterministic scene needs to run the same workload again.
+ *
+ * The log starts with {@link #MAGIC}, {@link #VERSION}, the {@link SceneRegistry} name of the scene, the number of its
+ * parameters and the parameters, see {@link PhysicsScene#getParameters()}, the seed and the screen size. Then follow
+ * records of a type byte and its arguments, consecutive steps with the same time step are written as one {@link #STEPS}
+ * record with a count, and {@link #END} closes the log. All values are big endian as written by DataOutputStream. */
+public class SessionRecorder implements PhysicsScene, InputProcessor {
+	public static final int MAGIC = 0x47445852;
+	public static final int VERSION = 2;
+
+	public static final byte END = 0;
+	/** time step as float, number of steps as int **/
+	public static final byte STEPS = 1;
+	public static final byte KEY_DOWN = 2;
+	public static final byte KEY_UP = 3;
+	public static final byte KEY_TYPED = 4;
+	public static final byte TOUCH_DOWN = 5;
+	public static final byte TOUCH_UP = 6;
+	public static final byte TOUCH_DRAGGED = 7;
+	public static final byte MOUSE_MOVED = 8;
+	public static final byte SCROLLED = 9;
+
+	private final PhysicsScene scene;
+	private final InputProcessor input;
+	private final DataOutputStream out;
+
+	/** the run of steps with the same time step not written yet **/
+	private float pendingTimeStep;
+	private int pendingSteps;
+
+	/** @param input the input processor of the scene, null if it takes no input */
+	public SessionRecorder (PhysicsScene scene, InputProcessor input, long seed, int width, int height, OutputStream out) {
+		this.scene = scene;
+		this.input = input;
+		this.out = new DataOutputStream(new BufferedOutputStream(out));
+		try {
+			this.out.writeInt(MAGIC);
+			this.out.writeByte(VERSION);
+			this.out.writeUTF(scene.getClass().getSimpleName());
+			String[] parameters = scene.getParameters();
+			this.out.writeInt(parameters.length);
+			for (String parameter : parameters)
+				this.out.writeUTF(parameter);
+			this.out.writeLong(seed);
+			this.out.writeInt(width);
+			this.out.writeInt(height);
+		} catch (IOException e) {
+			throw new GdxRuntimeException("Couldn't write the session header", e);
+		}
+	}
+
+	public SessionRecorder (PhysicsScene scene, InputProcessor input, long seed, int width, int height, String path) {
+		this(scene, input, seed, width, height, open(path));
+	}
+
+	private static OutputStream open (String path) {
+		try {
+			return new FileOutputStream(path);
+		} catch (IOException e) {
+			throw new GdxRuntimeException("Couldn't create the session log " + path, e);
+		}
+	}
+
+	@Override
+	public void step (float timeStep) {
+		if (pendingSteps > 0 && timeStep != pendingTimeStep) flushSteps();
+		pendingTimeStep = timeStep;
+		pendingSteps++;
+		scene.step(timeStep);
+	}
+
+	private void flushSteps () {
+		if (pendingSteps == 0) return;
+		try {
+			out.writeByte(STEPS);
+			out.writeFloat(pendingTimeStep);
+			out.writeInt(pendingSteps);
+		} catch (IOException e) {
+			throw new GdxRuntimeException("Couldn't write the session log", e);
+		}
+		pendingSteps = 0;
+	}
+
+	/** writes the input event, the steps before it first **/
+	private void event (int type, int a, int b, int c, int d, int arguments) {
+		flushSteps();
+		try {
+			out.writeByte(type);
+			if (arguments > 0) out.writeInt(a);
+			if (arguments > 1) out.writeInt(b);
+			if (arguments > 2) out.writeInt(c);
+			if (arguments > 3) out.writeInt(d);
+		} catch (IOException e) {
+			throw new GdxRuntimeException("Couldn't write the session log", e);
+		}
+	}
+
+	/** writes the remaining steps and the end marker and closes the log **/
+	public void close () {
+		flushSteps();
+		try {
+			out.writeByte(END);
+			out.close();
+		} catch (IOException e) {
+			throw new GdxRuntimeException("Couldn't close the session log", e);
+		}
+	}
+
+	@Override
+	public void createPhysics () {
+		scene.createPhysics();
+	}
+
+	@Override
+	public String[] getParameters () {
+		return scene.getParameters();
+	}
+
+	@Override
+	public World getWorld () {
+		return scene.getWorld();
+	}
+
+	@Override
+	public void disposePhysics () {
+		scene.disposePhysics();
+	}
+
+	@Override
+	public void makeDeterministic (long seed) {
+		scene.makeDeterministic(seed);
+	}
+
+	@Override
+	public AdaptiveIterations getIterations () {
+		return scene.getIterations();
+	}
+
+	@Override
+	public boolean keyDown (int keycode) {
+		event(KEY_DOWN, keycode, 0, 0, 0, 1);
+		return input != null && input.keyDown(keycode);
+	}
+
+	@Override
+	public boolean keyUp (int keycode) {
+		event(KEY_UP, keycode, 0, 0, 0, 1);
+		return input != null && input.keyUp(keycode);
+	}
+
+	@Override
+	public boolean keyTyped (char character) {
+		event(KEY_TYPED, character, 0, 0, 0, 1);
+		return input != null && input.keyTyped(character);
+	}
+
+	@Override
+	public boolean touchDown (int screenX, int screenY, int pointer, int button) {
+		event(TOUCH_DOWN, screenX, screenY, pointer, button, 4);
+		return input != null && input.touchDown(screenX, screenY, pointer, button);
+	}
+
+	@Override
+	public boolean touchUp (int screenX, int screenY, int pointer, int button) {
+		event(TOUCH_UP, screenX, screenY, pointer, button, 4);
+		return input != null && input.touchUp(screenX, screenY, pointer, button);
+	}
+
+	@Override
+	public boolean touchDragged (int screenX, int screenY, int pointer) {
+		event(TOUCH_DRAGGED, screenX, screenY, pointer, 0, 3);
+		return input != null && input.touchDragged(screenX, screenY, pointer);
+	}
+
+	@Override
+	public boolean mouseMoved (int screenX, int screenY) {
+		event(MOUSE_MOVED, screenX, screenY, 0, 0, 2);
+		return input != null && input.mouseMoved(screenX, screenY);
+	}
+
+	@Override
+	public boolean scrolled (int amount) {
+		event(SCROLLED, amount, 0, 0, 0, 1);
+		return input != null && input.scrolled(amount);
+	}
+}
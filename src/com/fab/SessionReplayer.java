@@ -0,0 +1,177 @@
+package com.fab;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import com.badlogic.gdx.InputProcessor;
+import com.badlogic.gdx.utils.GdxNativesLoader;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.LongArray;
+import com.badlogic.gdx.utils.TimeUtils;
+
+/** Plays a log of the {@link SessionRecorder} back without a window: creates the recorded scene with its recorded parameters
+ * through the {@link SceneRegistry} and seeds it with the recorded seed, feeds
+ * it the recorded time steps and input events in their original order and measures every step. Two builds replaying the same
+ * log simulate exactly the same workload, so their step times can be compared directly.
+ *
+ * Usage: SessionReplayer session.log [output.csv] */
+public class SessionReplayer {
+	private final DataInputStream in;
+	public final String sceneName;
+	public final String[] parameters;
+	public final long seed;
+	public final int width, height;
+
+	private PhysicsScene scene;
+	private InputProcessor input;
+	private final LongArray times = new LongArray();
+	private float timeStep;
+
+	public SessionReplayer (InputStream in) throws IOException {
+		this.in = new DataInputStream(new BufferedInputStream(in));
+		if (this.in.readInt() != SessionRecorder.MAGIC) throw new GdxRuntimeException("Not a session log");
+		int version = this.in.readByte();
+		if (version == 1) {
+			// the class name of a scene without parameters
+			String sceneClass = this.in.readUTF();
+			sceneName = sceneClass.substring(sceneClass.lastIndexOf('.') + 1);
+			parameters = new String[0];
+		} else if (version == SessionRecorder.VERSION) {
+			sceneName = this.in.readUTF();
+			parameters = new String[this.in.readInt()];
+			for (int i = 0; i < parameters.length; i++)
+				parameters[i] = this.in.readUTF();
+		} else {
+			throw new GdxRuntimeException("Unsupported session log version " + version);
+		}
+		seed = this.in.readLong();
+		width = this.in.readInt();
+		height = this.in.readInt();
+	}
+
+	/** Creates the scene, plays the whole log and disposes the scene again. */
+	public HeadlessRunner.Result replay () throws IOException {
+		scene = SceneRegistry.create(sceneName, parameters);
+		scene.makeDeterministic(seed);
+		if (scene instanceof Box2DTest) {
+			Box2DTest test = (Box2DTest)scene;
+			test.createCamera();
+			test.resize(width, height);
+		}
+		input = scene instanceof InputProcessor ? (InputProcessor)scene : null;
+
+		scene.createPhysics();
+		try {
+			play();
+			return result();
+		} finally {
+			scene.disposePhysics();
+		}
+	}
+
+	private void play () throws IOException {
+		while (true) {
+			byte type = in.readByte();
+			switch (type) {
+			case SessionRecorder.END:
+				return;
+			case SessionRecorder.STEPS:
+				float timeStep = in.readFloat();
+				int count = in.readInt();
+				if (this.timeStep == 0) this.timeStep = timeStep;
+				for (int i = 0; i < count; i++) {
+					long startTime = TimeUtils.nanoTime();
+					scene.step(timeStep);
+					times.add(TimeUtils.nanoTime() - startTime);
+				}
+				break;
+			case SessionRecorder.KEY_DOWN:
+				int keycode = in.readInt();
+				if (input != null) input.keyDown(keycode);
+				break;
+			case SessionRecorder.KEY_UP:
+				keycode = in.readInt();
+				if (input != null) input.keyUp(keycode);
+				break;
+			case SessionRecorder.KEY_TYPED:
+				char character = (char)in.readInt();
+				if (input != null) input.keyTyped(character);
+				break;
+			case SessionRecorder.TOUCH_DOWN:
+				int x = in.readInt(), y = in.readInt(), pointer = in.readInt(), button = in.readInt();
+				if (input != null) input.touchDown(x, y, pointer, button);
+				break;
+			case SessionRecorder.TOUCH_UP:
+				x = in.readInt();
+				y = in.readInt();
+				pointer = in.readInt();
+				button = in.readInt();
+				if (input != null) input.touchUp(x, y, pointer, button);
+				break;
+			case SessionRecorder.TOUCH_DRAGGED:
+				x = in.readInt();
+				y = in.readInt();
+				pointer = in.readInt();
+				if (input != null) input.touchDragged(x, y, pointer);
+				break;
+			case SessionRecorder.MOUSE_MOVED:
+				x = in.readInt();
+				y = in.readInt();
+				if (input != null) input.mouseMoved(x, y);
+				break;
+			case SessionRecorder.SCROLLED:
+				int amount = in.readInt();
+				if (input != null) input.scrolled(amount);
+				break;
+			default:
+				throw new GdxRuntimeException("Corrupt session log, unknown record " + type);
+			}
+		}
+	}
+
+	private HeadlessRunner.Result result () {
+		long[] times = Arrays.copyOf(this.times.items, this.times.size);
+		Arrays.sort(times);
+
+		HeadlessRunner.Result result = new HeadlessRunner.Result();
+		result.scene = sceneName;
+		result.timeStep = timeStep;
+		result.setTimes(times);
+		result.setScene(scene);
+		return result;
+	}
+
+	public void close () throws IOException {
+		in.close();
+	}
+
+	public static void main (String[] args) throws IOException {
+		if (args.length < 1) {
+			System.out.println("Usage: SessionReplayer session.log [output.csv]");
+			return;
+		}
+
+		GdxNativesLoader.load();
+		SessionReplayer replayer = new SessionReplayer(new FileInputStream(args[0]));
+		HeadlessRunner.Result result;
+		try {
+			result = replayer.replay();
+		} finally {
+			replayer.close();
+		}
+
+		String csv = HeadlessRunner.CSV_HEADER + "\n" + result.toCsv() + "\n";
+		if (args.length > 1) {
+			FileWriter out = new FileWriter(args[1]);
+			out.write(csv);
+			out.close();
+		} else {
+			System.out.print(csv);
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package com.fab;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.ChainShape;
+import com.badlogic.gdx.physics.box2d.CircleShape;
+import com.badlogic.gdx.physics.box2d.EdgeShape;
+import com.badlogic.gdx.physics.box2d.Fixture;
+import com.badlogic.gdx.physics.box2d.PolygonShape;
+import com.badlogic.gdx.physics.box2d.Shape;
+import com.badlogic.gdx.utils.FloatArray;
+
+/** Turns fixture shapes into outlines in body local space, as line segments stored as x1, y1, x2, y2 per segment. The shapes
+ * are read through JNI, so an outline is meant to be computed once and then transformed by the body transform every frame. */
+public class ShapeTessellator {
+	/** the number of segments of a circle outline, the circle also gets a radius line so its rotation is visible **/
+	public static final int CIRCLE_SEGMENTS = 16;
+
+	private static final Vector2 v1 = new Vector2();
+	private static final Vector2 v2 = new Vector2();
+
+	/** @return the outlines of all fixtures of the body */
+	public static float[] tessellate (Body body) {
+		FloatArray segments = new FloatArray();
+		for (Fixture fixture : body.getFixtureList())
+			tessellate(fixture, segments);
+		return segments.toArray();
+	}
+
+	/** Adds the outline of the fixture to the given array. Not thread safe, it shares its temporary vectors. */
+	public static void tessellate (Fixture fixture, FloatArray segments) {
+		Shape shape = fixture.getShape();
+		switch (shape.getType()) {
+		case Circle: {
+			CircleShape circle = (CircleShape)shape;
+			Vector2 center = circle.getPosition();
+			float radius = circle.getRadius();
+			float cx = center.x, cy = center.y;
+			float angle = 0, step = MathUtils.PI2 / CIRCLE_SEGMENTS;
+			for (int i = 0; i < CIRCLE_SEGMENTS; i++) {
+				segments.add(cx + radius * MathUtils.cos(angle));
+				segments.add(cy + radius * MathUtils.sin(angle));
+				angle += step;
+				segments.add(cx + radius * MathUtils.cos(angle));
+				segments.add(cy + radius * MathUtils.sin(angle));
+			}
+			line(segments, cx, cy, cx + radius, cy);
+			break;
+		}
+		case Polygon: {
+			PolygonShape polygon = (PolygonShape)shape;
+			int count = polygon.getVertexCount();
+			for (int i = 0; i < count; i++) {
+				polygon.getVertex(i, v1);
+				polygon.getVertex((i + 1) % count, v2);
+				line(segments, v1.x, v1.y, v2.x, v2.y);
+			}
+			break;
+		}
+		case Edge: {
+			EdgeShape edge = (EdgeShape)shape;
+			edge.getVertex1(v1);
+			edge.getVertex2(v2);
+			line(segments, v1.x, v1.y, v2.x, v2.y);
+			break;
+		}
+		case Chain: {
+			ChainShape chain = (ChainShape)shape;
+			int count = chain.getVertexCount();
+			int lines = chain.isLooped() ? count : count - 1;
+			for (int i = 0; i < lines; i++) {
+				chain.getVertex(i, v1);
+				chain.getVertex((i + 1) % count, v2);
+				line(segments, v1.x, v1.y, v2.x, v2.y);
+			}
+			break;
+		}
+		}
+	}
+
+	private static void line (FloatArray segments, float x1, float y1, float x2, float y2) {
+		segments.add(x1);
+		segments.add(y1);
+		segments.add(x2);
+		segments.add(y2);
+	}
+}
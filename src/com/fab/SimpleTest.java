@@ -28,7 +28,6 @@
 
 package com.fab;
 
-import com.badlogic.gdx.physics.box2d.Body;
 import com.badlogic.gdx.physics.box2d.BodyDef;
 import com.badlogic.gdx.physics.box2d.BodyDef.BodyType;
 import com.badlogic.gdx.physics.box2d.CircleShape;
@@ -66,21 +65,13 @@ public class SimpleTest extends Box2DTest {
 		PolygonShape boxPoly = new PolygonShape();
 		boxPoly.setAsBox(1, 1);
 
-		// next we create the 50 box bodies using the PolygonShape we just
-		// defined. This process is similar to the one we used for the ground
-		// body. Note that we reuse the polygon for each body fixture.
-		for (int i = 0; i < 20; i++) {
-			// Create the BodyDef, set a random position above the
-			// ground and create a new body
-			BodyDef boxBodyDef = new BodyDef();
-			boxBodyDef.type = BodyType.DynamicBody;
-			boxBodyDef.position.x = -24 + (float)(Math.random() * 48);
-			boxBodyDef.position.y = 10 + (float)(Math.random() * 100);
-			Body boxBody = world.createBody(boxBodyDef);
-
-			// add the boxPoly shape as a fixture
-			boxBody.createFixture(boxPoly, 10);
-		}
+		// next we create the 20 box bodies using the PolygonShape we just
+		// defined. The builder reuses one BodyDef and the polygon for all
+		// of them, we only choose a random position above the ground for each.
+		BodyBatchBuilder builder = new BodyBatchBuilder();
+		float[] positions = new float[2 * 20];
+		randomPositions(positions, 20);
+		builder.set(boxPoly, 10).build(world, positions, 20);
 
 		// we are done, all that's left is disposing the boxPoly
 		boxPoly.dispose();
@@ -89,16 +80,16 @@ public class SimpleTest extends Box2DTest {
 		CircleShape circleShape = new CircleShape();
 		circleShape.setRadius(1);
 
-		for (int i = 0; i < 10; i++) {
-			BodyDef circleBodyDef = new BodyDef();
-			circleBodyDef.type = BodyType.DynamicBody;
-			circleBodyDef.position.x = -24 + (float)(Math.random() * 48);
-			circleBodyDef.position.y = 10 + (float)(Math.random() * 100);
-			Body circleBody = world.createBody(circleBodyDef);
+		randomPositions(positions, 10);
+		builder.set(circleShape, 10).build(world, positions, 10);
+		circleShape.dispose();
+	}
 
-			// add the boxPoly shape as a fixture
-			circleBody.createFixture(circleShape, 10);
+	/** fills in count random positions above the ground **/
+	private void randomPositions (float[] positions, int count) {
+		for (int i = 0; i < count; i++) {
+			positions[2 * i] = -24 + random.nextFloat() * 48;
+			positions[2 * i + 1] = 10 + random.nextFloat() * 100;
 		}
-		circleShape.dispose();
 	}
 }
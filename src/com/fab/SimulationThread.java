@@ -0,0 +1,114 @@
+package com.fab;
+
+import com.badlogic.gdx.InputProcessor;
+import com.badlogic.gdx.InputProcessorQueue;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.TimeUtils;
+
+/** Steps a {@link PhysicsScene} on its own thread with a fixed time step. After every step the body transforms are published
+ * into a triple buffered {@link TransformSnapshot}: the simulation fills the back buffer and swaps it with the ready one, the
+ * renderer swaps the ready one with the front buffer when there is a newer one. Neither side ever waits for the other, and the
+ * renderer never touches the World.
+ *
+ * Input events are queued and replayed on the simulation thread before the next step, so input handlers may use the World. */
+public class SimulationThread extends Thread {
+	private final PhysicsScene scene;
+	private final float stepSize;
+	private final InputProcessorQueue input;
+
+	private TransformSnapshot front = new TransformSnapshot();
+	private TransformSnapshot ready = new TransformSnapshot();
+	private TransformSnapshot back = new TransformSnapshot();
+	private boolean fresh;
+
+	private volatile boolean running = true;
+	private volatile boolean outlinesDirty = true;
+	private final Array<Body> bodies = new Array<Body>();
+
+	public SimulationThread (PhysicsScene scene, float stepSize, InputProcessor inputProcessor) {
+		super("Simulation");
+		setDaemon(true);
+		this.scene = scene;
+		this.stepSize = stepSize;
+		this.input = new InputProcessorQueue(inputProcessor);
+	}
+
+	/** @return the input processor to register with Gdx.input, it forwards to the simulation thread */
+	public InputProcessor getInput () {
+		return input;
+	}
+
+	@Override
+	public void run () {
+		long stepNanos = (long)(stepSize * 1000000000L);
+		long nextStep = TimeUtils.nanoTime();
+		long step = 0;
+		// the snapshot published last, either the ready or the front one, the simulation only reads it
+		TransformSnapshot last = null;
+		while (running) {
+			input.drain();
+
+			long startTime = TimeUtils.nanoTime();
+			scene.step(stepSize);
+			float stepTime = (TimeUtils.nanoTime() - startTime) / 1000000000.0f;
+
+			scene.getWorld().getBodies(bodies);
+			TransformSnapshot snapshot = back;
+			snapshot.capture(bodies, outlinesDirty ? null : last);
+			outlinesDirty = false;
+			snapshot.step = ++step;
+			snapshot.stepTime = stepTime;
+			publish();
+			last = snapshot;
+
+			nextStep += stepNanos;
+			long wait = nextStep - TimeUtils.nanoTime();
+			if (wait > 0) {
+				try {
+					Thread.sleep(wait / 1000000, (int)(wait % 1000000));
+				} catch (InterruptedException e) {
+					break;
+				}
+			} else if (wait < -5 * stepNanos) {
+				// too far behind to catch up, drop the time like FixedTimestep does
+				nextStep = TimeUtils.nanoTime();
+			}
+		}
+	}
+
+	private synchronized void publish () {
+		TransformSnapshot tmp = ready;
+		ready = back;
+		back = tmp;
+		fresh = true;
+	}
+
+	/** @return the latest published snapshot, it stays valid until the next call */
+	public synchronized TransformSnapshot acquire () {
+		if (fresh) {
+			TransformSnapshot tmp = front;
+			front = ready;
+			ready = tmp;
+			fresh = false;
+		}
+		return front;
+	}
+
+	/** forces the outlines to be recomputed, needed after fixtures were added to or removed from existing bodies and after
+	 * bodies were destroyed and others created, see {@link Box2DTest#invalidateOutlines()} **/
+	public void invalidateOutlines () {
+		outlinesDirty = true;
+	}
+
+	/** stops the thread and waits for the step in progress, the World may be disposed afterwards **/
+	public void shutdown () {
+		running = false;
+		interrupt();
+		try {
+			join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
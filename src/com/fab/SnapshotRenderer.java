@@ -0,0 +1,39 @@
+package com.fab;
+
+import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
+import com.badlogic.gdx.graphics.glutils.ShapeRenderer.ShapeType;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.utils.Disposable;
+
+/** Draws the body outlines of a {@link TransformSnapshot}, the counterpart of Box2DDebugRenderer for a World that is stepped on
+ * another thread. */
+public class SnapshotRenderer implements Disposable {
+	private final ShapeRenderer renderer = new ShapeRenderer();
+
+	public void render (TransformSnapshot snapshot, Matrix4 projMatrix) {
+		renderer.setProjectionMatrix(projMatrix);
+		renderer.setColor(0.9f, 0.7f, 0.7f, 1);
+		renderer.begin(ShapeType.Line);
+		float[] transforms = snapshot.transforms;
+		for (int i = 0, j = 0; i < snapshot.count; i++) {
+			float x = transforms[j++];
+			float y = transforms[j++];
+			float angle = transforms[j++];
+			float cos = (float)Math.cos(angle);
+			float sin = (float)Math.sin(angle);
+
+			float[] outline = snapshot.outlines[i];
+			for (int k = 0; k < outline.length; k += 4) {
+				float x1 = outline[k], y1 = outline[k + 1];
+				float x2 = outline[k + 2], y2 = outline[k + 3];
+				renderer.line(x + cos * x1 - sin * y1, y + sin * x1 + cos * y1, x + cos * x2 - sin * y2, y + sin * x2 + cos * y2);
+			}
+		}
+		renderer.end();
+	}
+
+	@Override
+	public void dispose () {
+		renderer.dispose();
+	}
+}
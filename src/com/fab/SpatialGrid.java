@@ -0,0 +1,129 @@
+package com.fab;
+
+import java.util.Arrays;
+
+/** A uniform grid of square cells over a bounded area for nearest neighbour queries against a set of moving points, used by
+ * {@link Game} to find the nearest ball of every player.
+ *
+ * Every cell keeps a doubly linked list of its items in int arrays. {@link #update(int, float, float)} only relinks an item
+ * when it crossed into another cell, so refreshing all items each step costs one cell computation per item and no
+ * allocation. Points outside the bounds are kept in the border cells. {@link #nearest(float, float)} searches rings of cells
+ * around the query until no closer item can exist, with about one item per cell that visits a handful of cells. */
+public class SpatialGrid {
+	public final float minX, minY;
+	public final float cellSize;
+	public final int columns, rows;
+
+	/** first item of every cell, -1 if empty **/
+	private final int[] head;
+	private int[] next = new int[0];
+	private int[] previous = new int[0];
+	private int[] cell = new int[0];
+	private float[] x = new float[0];
+	private float[] y = new float[0];
+	private int count;
+
+	public SpatialGrid (float minX, float minY, float maxX, float maxY, float cellSize) {
+		this.minX = minX;
+		this.minY = minY;
+		this.cellSize = cellSize;
+		columns = Math.max(1, (int)Math.ceil((maxX - minX) / cellSize));
+		rows = Math.max(1, (int)Math.ceil((maxY - minY) / cellSize));
+		head = new int[columns * rows];
+		Arrays.fill(head, -1);
+	}
+
+	/** Sets the number of items and removes all of them from the grid, {@link #update(int, float, float)} inserts them again. */
+	public void setCount (int count) {
+		if (next.length < count) {
+			next = new int[count];
+			previous = new int[count];
+			cell = new int[count];
+			x = new float[count];
+			y = new float[count];
+		}
+		Arrays.fill(head, -1);
+		Arrays.fill(cell, 0, count, -1);
+		this.count = count;
+	}
+
+	public int getCount () {
+		return count;
+	}
+
+	/** Moves an item to a new position, relinking it only if it changed its cell. */
+	public void update (int item, float x, float y) {
+		this.x[item] = x;
+		this.y[item] = y;
+		int cell = cellIndex(column(x), row(y));
+		int old = this.cell[item];
+		if (cell == old) return;
+
+		if (old >= 0) {
+			// unlink from the old cell
+			int previous = this.previous[item], next = this.next[item];
+			if (previous >= 0)
+				this.next[previous] = next;
+			else
+				head[old] = next;
+			if (next >= 0) this.previous[next] = previous;
+		}
+
+		this.cell[item] = cell;
+		this.previous[item] = -1;
+		this.next[item] = head[cell];
+		if (head[cell] >= 0) this.previous[head[cell]] = item;
+		head[cell] = item;
+	}
+
+	/** @return the item closest to the point, -1 if the grid is empty */
+	public int nearest (float px, float py) {
+		int cx = column(px), cy = row(py);
+		int best = -1;
+		float bestDistance = Float.MAX_VALUE;
+		int maxRing = Math.max(columns, rows);
+		for (int ring = 0; ring < maxRing; ring++) {
+			int top = cy + ring, bottom = cy - ring;
+			for (int row = Math.max(0, bottom); row <= Math.min(rows - 1, top); row++) {
+				// the top and bottom row of the ring completely, the rows in between only at both ends
+				boolean edge = row == top || row == bottom;
+				int step = edge ? 1 : 2 * ring;
+				for (int column = cx - ring; column <= cx + ring; column += step) {
+					if (column < 0 || column >= columns) continue;
+					for (int item = head[cellIndex(column, row)]; item >= 0; item = next[item]) {
+						float dx = x[item] - px, dy = y[item] - py;
+						float distance = dx * dx + dy * dy;
+						if (distance < bestDistance) {
+							bestDistance = distance;
+							best = item;
+						}
+					}
+				}
+			}
+			// every cell of the next ring is at least ring cells away from the cell of the query
+			float bound = ring * cellSize;
+			if (best >= 0 && bestDistance <= bound * bound) break;
+		}
+		return best;
+	}
+
+	public float getX (int item) {
+		return x[item];
+	}
+
+	public float getY (int item) {
+		return y[item];
+	}
+
+	private int column (float x) {
+		return Math.min(columns - 1, Math.max(0, (int)((x - minX) / cellSize)));
+	}
+
+	private int row (float y) {
+		return Math.min(rows - 1, Math.max(0, (int)((y - minY) / cellSize)));
+	}
+
+	private int cellIndex (int column, int row) {
+		return row * columns + column;
+	}
+}
@@ -31,13 +31,25 @@ package com.fab;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.Body;
 import com.badlogic.gdx.physics.box2d.BodyDef;
-import com.badlogic.gdx.physics.box2d.BodyDef.BodyType;
 import com.badlogic.gdx.physics.box2d.CircleShape;
 import com.badlogic.gdx.physics.box2d.EdgeShape;
 import com.badlogic.gdx.physics.box2d.World;
 
 public class SphereStack extends Box2DTest {
-	int e_count = 10;
+	final int e_count;
+
+	public SphereStack () {
+		this(10);
+	}
+
+	public SphereStack (int spheres) {
+		e_count = spheres;
+	}
+
+	@Override
+	public String[] getParameters () {
+		return new String[] {String.valueOf(e_count)};
+	}
 
 	@Override
 	protected void createWorld (World world) {
@@ -55,13 +67,12 @@ public class SphereStack extends Box2DTest {
 			CircleShape shape = new CircleShape();
 			shape.setRadius(1.0f);
 
+			float[] positions = new float[2 * e_count];
 			for (int i = 0; i < e_count; i++) {
-				BodyDef bd = new BodyDef();
-				bd.type = BodyType.DynamicBody;
-				bd.position.set(0, 4.0f + 3.0f * i);
-				Body body = world.createBody(bd);
-				body.createFixture(shape, 1.0f);
+				positions[2 * i] = 0;
+				positions[2 * i + 1] = 4.0f + 3.0f * i;
 			}
+			new BodyBatchBuilder().set(shape, 1.0f).build(world, positions, e_count);
 
 			shape.dispose();
 		}
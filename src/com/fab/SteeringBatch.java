@@ -0,0 +1,155 @@
+package com.fab;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.Transform;
+import com.badlogic.gdx.utils.Array;
+
+/** The steering of {@link Game} as three passes over all players instead of one method call per Body:
+ * <ol>
+ * <li>{@link #read()} copies the state of every player into primitive arrays, three JNI calls per player</li>
+ * <li>{@link #computeTorques(float)} turns every player towards its target and
+ * {@link #computeForces(float, float, float, int, int)} moves it there, each in one loop over the arrays, without JNI calls,
+ * object access or branches the JIT can't turn into selects</li>
+ * <li>{@link #apply()} writes the torques and forces back, two JNI calls per player</li>
+ * </ol>
+ * Inertia, mass and damping never change and are read once in {@link #setBodies(Array)}. The heading is kept as cosine and
+ * sine of the body transform, the rotation towards the target is the angle between heading and target direction and comes out
+ * of {@link FastMath#atan2(float, float)} already wrapped to [-PI, PI]. */
+public class SteeringBatch {
+	public int count;
+	private Body[] bodies = new Body[0];
+
+	public float[] x = new float[0];
+	public float[] y = new float[0];
+	public float[] cos = new float[0];
+	public float[] sin = new float[0];
+	public float[] angularVelocity = new float[0];
+	public float[] vx = new float[0];
+	public float[] vy = new float[0];
+	public float[] inertia = new float[0];
+	public float[] mass = new float[0];
+	public float[] damping = new float[0];
+
+	/** the point every player turns towards, filled by the caller before {@link #computeTorques(float)} **/
+	public float[] targetX = new float[0];
+	public float[] targetY = new float[0];
+
+	public float[] torque = new float[0];
+	public float[] forceX = new float[0];
+	public float[] forceY = new float[0];
+
+	/** Sets the steered bodies, call again whenever players are added or removed. */
+	public void setBodies (Array<Body> players) {
+		count = players.size;
+		if (bodies.length < count) {
+			bodies = new Body[count];
+			x = new float[count];
+			y = new float[count];
+			cos = new float[count];
+			sin = new float[count];
+			angularVelocity = new float[count];
+			vx = new float[count];
+			vy = new float[count];
+			inertia = new float[count];
+			mass = new float[count];
+			damping = new float[count];
+			targetX = new float[count];
+			targetY = new float[count];
+			torque = new float[count];
+			forceX = new float[count];
+			forceY = new float[count];
+		}
+		for (int i = 0; i < count; i++) {
+			Body body = players.get(i);
+			bodies[i] = body;
+			inertia[i] = body.getInertia();
+			mass[i] = body.getMass();
+			damping[i] = body.getLinearDamping();
+		}
+	}
+
+	public void read () {
+		for (int i = 0; i < count; i++) {
+			Body body = bodies[i];
+			float[] transform = body.getTransform().vals;
+			x[i] = transform[Transform.POS_X];
+			y[i] = transform[Transform.POS_Y];
+			cos[i] = transform[Transform.COS];
+			sin[i] = transform[Transform.SIN];
+			angularVelocity[i] = body.getAngularVelocity();
+			Vector2 velocity = body.getLinearVelocity();
+			vx[i] = velocity.x;
+			vy[i] = velocity.y;
+		}
+	}
+
+	/** fills the targets of all players with the same point **/
+	public void setTarget (float targetX, float targetY) {
+		for (int i = 0; i < count; i++) {
+			this.targetX[i] = targetX;
+			this.targetY[i] = targetY;
+		}
+	}
+
+	/** The bang-bang controller of Game.applyTorque: accelerate towards the target while the remaining rotation is longer than
+	 * the braking distance, brake otherwise. */
+	public void computeTorques (float maxangacc) {
+		computeTorques(maxangacc, 0, count);
+	}
+
+	/** Computes the torques of the players from inclusive to exclusive. Only reads the state arrays and writes the torques of
+	 * the range, disjoint ranges may be computed concurrently. */
+	public void computeTorques (float maxangacc, int from, int to) {
+		float[] x = this.x, y = this.y, cos = this.cos, sin = this.sin;
+		float[] targetX = this.targetX, targetY = this.targetY;
+		float[] angularVelocity = this.angularVelocity, inertia = this.inertia, torque = this.torque;
+		for (int i = from; i < to; i++) {
+			float dx = targetX[i] - x[i];
+			float dy = targetY[i] - y[i];
+			// angle from the heading to the target direction
+			float rotation = FastMath.atan2(cos[i] * dy - sin[i] * dx, cos[i] * dx + sin[i] * dy);
+
+			float v = angularVelocity[i];
+			float I = inertia[i];
+			float remaining = 0.5f * v * v * I * I / maxangacc;
+
+			boolean accelerate = Math.abs(rotation) > remaining && Math.signum(v) == Math.signum(rotation);
+			float direction = v > 0 ? 1 : -1;
+			torque[i] = (accelerate ? direction : -direction) * maxangacc / I;
+		}
+	}
+
+	/** Computes the forces that move the players from inclusive to exclusive towards their targets at maxvel, slower when the
+	 * target is closer than one step. The force reaches the desired velocity within the next step if maxacc allows it, taking
+	 * the linear damping Box2D applies after the forces into account. Disjoint ranges may be computed concurrently. */
+	public void computeForces (float maxacc, float maxvel, float timeStep, int from, int to) {
+		float[] x = this.x, y = this.y, vx = this.vx, vy = this.vy;
+		float[] targetX = this.targetX, targetY = this.targetY;
+		float[] mass = this.mass, damping = this.damping, forceX = this.forceX, forceY = this.forceY;
+		for (int i = from; i < to; i++) {
+			float dx = targetX[i] - x[i];
+			float dy = targetY[i] - y[i];
+			float distance = (float)Math.sqrt(dx * dx + dy * dy);
+			float speed = Math.min(maxvel, distance / timeStep);
+			float scale = distance > 0 ? speed / distance : 0;
+
+			// Box2D integrates v + h * F / m first and divides by 1 + h * damping afterwards
+			float compensation = 1 + timeStep * damping[i];
+			float ax = (dx * scale * compensation - vx[i]) / timeStep;
+			float ay = (dy * scale * compensation - vy[i]) / timeStep;
+			float acceleration = (float)Math.sqrt(ax * ax + ay * ay);
+			float limit = acceleration > maxacc ? maxacc / acceleration : 1;
+			forceX[i] = ax * limit * mass[i];
+			forceY[i] = ay * limit * mass[i];
+		}
+	}
+
+	public void apply () {
+		for (int i = 0; i < count; i++) {
+			Body body = bodies[i];
+			body.applyTorque(torque[i], true);
+			body.applyForceToCenter(forceX[i], forceY[i], true);
+		}
+	}
+}
@@ -0,0 +1,57 @@
+package com.fab;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.utils.Array;
+
+/** The state of all bodies after one step, copied into primitive arrays so that another thread can draw it without touching
+ * the World. The outlines are immutable and shared between snapshots, they are only recomputed for bodies that weren't there
+ * in the previous snapshot. The World pools its Body objects, so a body destroyed and recreated between two snapshots keeps
+ * its old outline, pass null as previous snapshot after changing fixtures. */
+public class TransformSnapshot {
+	/** the number of bodies **/
+	public int count;
+
+	/** x, y and angle per body **/
+	public float[] transforms = new float[0];
+
+	/** the local space outline of every body, see {@link ShapeTessellator} **/
+	public float[][] outlines = new float[0][];
+
+	/** the number of the step this snapshot was taken after **/
+	public long step;
+
+	/** the time the step took in seconds **/
+	public float stepTime;
+
+	/** the bodies the outlines were computed for, only for the thread owning the world **/
+	private Body[] owners = new Body[0];
+
+	/** Copies the transforms of the bodies. Must be called on the thread that steps the world.
+	 * @param previous the snapshot taken before, its outlines are reused for bodies that are still there, may be null */
+	public void capture (Array<Body> bodies, TransformSnapshot previous) {
+		count = bodies.size;
+		if (transforms.length < count * 3) transforms = new float[count * 3];
+		if (outlines.length < count) {
+			outlines = new float[count][];
+			owners = new Body[count];
+		}
+
+		for (int i = 0, j = 0; i < count; i++) {
+			Body body = bodies.get(i);
+			Vector2 position = body.getPosition();
+			transforms[j++] = position.x;
+			transforms[j++] = position.y;
+			transforms[j++] = body.getAngle();
+
+			if (previous == null) {
+				outlines[i] = ShapeTessellator.tessellate(body);
+			} else if (i < previous.count && previous.owners[i] == body) {
+				outlines[i] = previous.outlines[i];
+			} else if (owners[i] != body) {
+				outlines[i] = ShapeTessellator.tessellate(body);
+			}
+			owners[i] = body;
+		}
+	}
+}
@@ -40,12 +40,35 @@ import com.badlogic.gdx.physics.box2d.PolygonShape;
 import com.badlogic.gdx.physics.box2d.World;
 
 public class VerticalStack extends Box2DTest {
-	static final int e_columnCount = 5;
-	static final int e_rowCount = 16;
+	final int e_columnCount;
+	final int e_rowCount;
 
 	Body m_bullet;
-	Body[] m_bodies = new Body[e_rowCount * e_columnCount];
-	int[] m_indices = new int[e_rowCount * e_columnCount];
+	Body[] m_bodies;
+	int[] m_indices;
+
+	public VerticalStack () {
+		this(5, 16);
+	}
+
+	/** columns beyond the fifth stand 5 apart further to the left **/
+	public VerticalStack (int columns, int rows) {
+		e_columnCount = columns;
+		e_rowCount = rows;
+		m_bodies = new Body[rows * columns];
+		m_indices = new int[rows * columns];
+	}
+
+	static final float xs[] = {0, -10, -5, 5, 10};
+
+	static float columnX (int column) {
+		return column < xs.length ? xs[column] : -15 - 5 * (column - xs.length);
+	}
+
+	@Override
+	public String[] getParameters () {
+		return new String[] {String.valueOf(e_columnCount), String.valueOf(e_rowCount)};
+	}
 
 	@Override
 	protected void createWorld (World world) {
@@ -54,7 +77,7 @@ public class VerticalStack extends Box2DTest {
 			Body ground = world.createBody(bd);
 
 			EdgeShape shape = new EdgeShape();
-			shape.set(new Vector2(-40, 0), new Vector2(40, 0));
+			shape.set(new Vector2(Math.min(-40, columnX(e_columnCount - 1) - 10), 0), new Vector2(40, 0));
 			ground.createFixture(shape, 0.0f);
 
 			shape.set(new Vector2(20, 0), new Vector2(20, 20));
@@ -62,31 +85,25 @@ public class VerticalStack extends Box2DTest {
 			shape.dispose();
 		}
 
-		float xs[] = {0, -10, -5, 5, 10};
+		BodyBatchBuilder builder = new BodyBatchBuilder();
+		builder.fixtureDef.friction = 0.3f;
+		float[] positions = new float[2 * e_rowCount];
 
 		for (int j = 0; j < e_columnCount; j++) {
 			PolygonShape shape = new PolygonShape();
 			shape.setAsBox(0.5f, 0.5f);
-
-			FixtureDef fd = new FixtureDef();
-			fd.shape = shape;
-			fd.density = 1.0f;
-			fd.friction = 0.3f;
+			builder.set(shape, 1.0f);
 
 			for (int i = 0; i < e_rowCount; i++) {
-				BodyDef bd = new BodyDef();
-				bd.type = BodyType.DynamicBody;
+				positions[2 * i] = columnX(j);
+				positions[2 * i + 1] = 0.752f + 1.54f * i;
+			}
+			builder.build(world, positions, null, e_rowCount, m_bodies, j * e_rowCount);
 
+			for (int i = 0; i < e_rowCount; i++) {
 				int n = j * e_rowCount + i;
 				m_indices[n] = n;
-
-				float x = 0;
-				bd.position.set(xs[j] + x, 0.752f + 1.54f * i);
-				Body body = world.createBody(bd);
-				body.setUserData(n);
-
-				m_bodies[n] = body;
-				body.createFixture(fd);
+				m_bodies[n].setUserData(n);
 			}
 
 			shape.dispose();
@@ -122,6 +139,8 @@ public class VerticalStack extends Box2DTest {
 
 				m_bullet.setLinearVelocity(new Vector2(400, 0));
 			}
+			// the new bullet may be the Body object of the old one
+			invalidateOutlines();
 		}
 
 		return false;